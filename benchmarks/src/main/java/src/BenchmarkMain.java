@@ -0,0 +1,50 @@
+package src;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH command line and
+ * adds the GC profiler when no profiler is named, so every run reports
+ * bytes allocated per operation and collection counts and times next to
+ * the timings.
+ *
+ * Usage: java -jar benchmarks/target/benchmarks.jar [JMH options] [benchmark regex]
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions command;
+        try {
+            command = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            Main.main(args);
+            return;
+        }
+        if(command.shouldHelp() || command.shouldList() || command.shouldListWithParams()
+                || command.shouldListProfilers() || command.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(command);
+        if(command.getProfilers().isEmpty()) options.addProfiler(GCProfiler.class);
+        try {
+            new Runner(options.build()).run();
+        } catch (RunnerException e) {
+            System.err.println("Benchmarks failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
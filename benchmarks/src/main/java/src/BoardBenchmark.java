@@ -0,0 +1,180 @@
+package src;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the board operations the solvers are built from, on every
+ * puzzle of the corpus: the Sudoku constructors, cloneSudoku, one guess
+ * with the autoFillSudoku propagation it triggers, the annealing board's
+ * cloneSudoku and swapSquares. The canonical form is timed next to a
+ * cache hit and a solve on the puzzles small enough to solve quickly.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    private static final int SWAPS = 4096;
+
+    /**
+     * A puzzle of the corpus with the boards and moves prepared from it
+     */
+    @State(Scope.Thread)
+    public static class Board {
+        @Param({"9x9-easy", "9x9-hard", "9x9-pathological",
+                "16x16-easy", "16x16-hard", "16x16-pathological",
+                "25x25-easy", "25x25-hard", "25x25-pathological",
+                "36x36-easy", "49x49-easy", "64x64-easy"})
+        public String puzzle;
+
+        private int[][] board;
+        private SudokuGeometry geometry;
+        private List<SudokuEntry> entries;
+        private Sudoku sudoku;
+        private int guessRow;
+        private int guessColumn;
+        private int guessValue;
+        private ProbabalisticSudoku probabalistic;
+        private int[] swaps;
+        private int nextSwap;
+
+        @Setup
+        public void setUp() {
+            BenchmarkCorpus.Puzzle corpusPuzzle = BenchmarkCorpus.puzzle(puzzle);
+            board = corpusPuzzle.getBoard();
+            int size = corpusPuzzle.getSize();
+            geometry = SudokuGeometry.forSize(size);
+            entries = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    if(board[i][j] != 0) entries.add(new SudokuEntry(i, j, board[i][j]));
+                }
+            }
+
+            sudoku = new Sudoku(board);
+            for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+                if(sudoku.isEmpty(geometry.rowOf(cell), geometry.columnOf(cell))) {
+                    guessRow = geometry.rowOf(cell);
+                    guessColumn = geometry.columnOf(cell);
+                    guessValue = sudoku.nextPossibleValue(guessRow, guessColumn, 0);
+                    break;
+                }
+            }
+
+            probabalistic = new ProbabalisticSudoku(board);
+            int[] free = new int[geometry.getCellCount()];
+            int count = 0;
+            for (int cell = 0; cell < free.length; cell++) {
+                if(!probabalistic.isFixed(geometry.rowOf(cell), geometry.columnOf(cell))) free[count++] = cell;
+            }
+            free = Arrays.copyOf(free, Math.max(count, 1));
+            Random rand = new Random(size);
+            swaps = new int[SWAPS];
+            for (int k = 0; k < swaps.length; k++) {
+                swaps[k] = free[rand.nextInt(free.length)];
+            }
+        }
+    }
+
+    @Benchmark
+    public Sudoku constructFromArray(Board state) {
+        return new Sudoku(state.board);
+    }
+
+    @Benchmark
+    public Sudoku constructFromEntries(Board state) {
+        return new Sudoku(state.geometry, state.entries);
+    }
+
+    @Benchmark
+    public Sudoku cloneSudoku(Board state) {
+        return state.sudoku.cloneSudoku();
+    }
+
+    /**
+     * autoFillSudoku runs after every placement, so time a guess on the
+     * first open square followed by its propagation and undo
+     */
+    @Benchmark
+    public boolean autoFillSudoku(Board state) {
+        state.sudoku.beginTrail();
+        state.sudoku.addValidEntry(state.guessRow, state.guessColumn, state.guessValue);
+        boolean solvable = state.sudoku.isSolvable();
+        state.sudoku.undoTo(0);
+        return solvable;
+    }
+
+    @Benchmark
+    public ProbabalisticSudoku probabalisticCloneSudoku(Board state) {
+        return state.probabalistic.cloneSudoku();
+    }
+
+    @Benchmark
+    public int swapSquares(Board state) {
+        int k = state.nextSwap;
+        state.nextSwap = (k + 2) & (SWAPS - 1);
+        SudokuGeometry geometry = state.geometry;
+        int[] swaps = state.swaps;
+        state.probabalistic.swapSquares(geometry.rowOf(swaps[k]), geometry.columnOf(swaps[k]),
+                geometry.rowOf(swaps[k + 1]), geometry.columnOf(swaps[k + 1]));
+        return state.probabalistic.getEntropy();
+    }
+
+    /**
+     * The puzzles that solve in well under a second, with a cache already
+     * holding their solution. canonicalForm is the price of every
+     * cache lookup, cacheHit the whole lookup, and solve the work a hit
+     * saves, so the ratio of solve to canonicalForm is what the cache buys
+     */
+    @State(Scope.Thread)
+    public static class Cached {
+        @Param({"9x9-easy", "9x9-hard", "9x9-pathological",
+                "16x16-easy", "16x16-hard", "16x16-pathological"})
+        public String puzzle;
+
+        private int[][] board;
+        private SolveCache cache;
+
+        @Setup
+        public void setUp() {
+            board = BenchmarkCorpus.puzzle(puzzle).getBoard();
+            cache = new SolveCache(1);
+            cache.SudokuSolver(board);
+        }
+    }
+
+    @Benchmark
+    public String canonicalForm(Cached state) {
+        return CanonicalForm.of(state.board).key();
+    }
+
+    @Benchmark
+    public Sudoku cacheHit(Cached state) {
+        return state.cache.SudokuSolver(state.board);
+    }
+
+    @Benchmark
+    public Sudoku solve(Cached state) {
+        return SudokuSolver.SudokuSolver(state.board);
+    }
+}
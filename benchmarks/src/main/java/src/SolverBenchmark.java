@@ -0,0 +1,125 @@
+package src;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Time to solve each puzzle of the corpus at 9x9, 16x16 and 25x25 with
+ * the depth first, SAT and annealing solvers. None of them write into
+ * the array they are given, so every call solves the same board. A
+ * solve that does not finish within its time limit fails the benchmark
+ * for that puzzle instead of reporting a time.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolverBenchmark {
+    private static final long SOLVE_TIMEOUT_NANOS = 10_000_000_000L;
+    private static final Duration ANNEAL_TIME_LIMIT = Duration.ofSeconds(2);
+
+    @Param({"9x9-easy", "9x9-hard", "9x9-pathological",
+            "16x16-easy", "16x16-hard", "16x16-pathological",
+            "25x25-easy", "25x25-hard", "25x25-pathological"})
+    public String puzzle;
+
+    private int[][] board;
+    private DeductionPipeline deductions;
+    private AnnealingOptions tempering;
+
+    /**
+     * Settings of the annealing solver for each kind of move
+     */
+    @State(Scope.Benchmark)
+    public static class Annealing {
+        @Param({"ANY_SQUARES", "WITHIN_BOX"})
+        public AnnealingOptions.MoveStrategy moves;
+
+        private AnnealingOptions options;
+
+        @Setup
+        public void setUp(SolverBenchmark benchmark) {
+            options = (moves == AnnealingOptions.MoveStrategy.WITHIN_BOX
+                    ? AnnealingOptions.boxPreserving() : new AnnealingOptions())
+                    .setSeed(benchmark.board.length)
+                    .setTimeLimit(ANNEAL_TIME_LIMIT);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkCorpus.puzzle(puzzle).getBoard();
+        deductions = DeductionPipeline.standard();
+        tempering = AnnealingOptions.boxPreserving()
+                .setSeed(board.length)
+                .setTimeLimit(ANNEAL_TIME_LIMIT);
+    }
+
+    /**
+     * SudokuSolver.SudokuSolver with its default options, bounded by the
+     * solve timeout
+     */
+    @Benchmark
+    public SolverOutput sudokuSolver() {
+        return solved(SudokuSolver.SolveSudoku(board,
+                new SolverOptions().setCancellation(deadline())));
+    }
+
+    @Benchmark
+    public SolverOutput sudokuSolverDeductions() {
+        return solved(SudokuSolver.SolveSudoku(board, new SolverOptions()
+                .setSearchMode(SolverOptions.SearchMode.IN_PLACE)
+                .setVariableOrdering(SolverOptions.VariableOrdering.MRV)
+                .setDeductions(deductions)
+                .setCancellation(deadline())));
+    }
+
+    @Benchmark
+    public SolverOutput satSolver() {
+        return solved(SatSolver.SolveSudoku(board, new SolverOptions().setCancellation(deadline())));
+    }
+
+    /**
+     * ProbabalisticSudokuSolver.SudokuSolver with a fixed seed and time
+     * limit
+     */
+    @Benchmark
+    public SolverOutput probabalisticSudokuSolver(Annealing annealing) {
+        return solved(ProbabalisticSudokuSolver.SolveSudoku(board, annealing.options));
+    }
+
+    @Benchmark
+    public SolverOutput parallelTemperingSolver() {
+        return solved(ParallelTemperingSolver.SolveSudoku(board, tempering,
+                ForkJoinPool.commonPool()));
+    }
+
+    private static BooleanSupplier deadline() {
+        long deadline = System.nanoTime() + SOLVE_TIMEOUT_NANOS;
+        return () -> System.nanoTime() - deadline > 0;
+    }
+
+    private static SolverOutput solved(SolverOutput output) {
+        if(!output.isSolved()) throw new IllegalStateException("stopped: " + output.getTermination());
+        return output;
+    }
+}
@@ -0,0 +1,311 @@
+package src;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * AnnealingOptions collects the settings for a single run of the
+ * probabilistic sudoku solving algorithm. Every setter returns the
+ * options so that settings can be chained.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class AnnealingOptions {
+    static final double DEFAULT_TEMPERATURE = 1.0;
+    static final double DEFAULT_COOLING_RATE = 0.9999;
+    static final long DEFAULT_REHEAT_AFTER = 20_000;
+    static final long DEFAULT_RESTART_AFTER = 200_000;
+    static final long DEFAULT_MAX_ITERATIONS = 50_000_000;
+    static final int DEFAULT_REPLICAS = 4;
+    static final double DEFAULT_MIN_TEMPERATURE = 0.25;
+    static final double DEFAULT_MAX_TEMPERATURE = 3.0;
+    static final long DEFAULT_EXCHANGE_INTERVAL = 1000;
+
+    /**
+     * Which pairs of squares a move may swap
+     */
+    public enum MoveStrategy {
+        /** Any two squares that are not fixed */
+        ANY_SQUARES,
+        /** Two squares that are not fixed in the same box */
+        WITHIN_BOX
+    }
+
+    private ProbabalisticSudoku.FillStrategy fillStrategy = ProbabalisticSudoku.FillStrategy.GLOBAL;
+    private MoveStrategy moveStrategy = MoveStrategy.ANY_SQUARES;
+    private long seed = System.nanoTime();
+    private CoolingSchedule coolingSchedule = CoolingSchedule.reheating(DEFAULT_TEMPERATURE, DEFAULT_COOLING_RATE, DEFAULT_REHEAT_AFTER);
+    private long maxIterations = DEFAULT_MAX_ITERATIONS;
+    private Duration timeLimit;
+    private BooleanSupplier cancellation;
+    private long restartAfter = DEFAULT_RESTART_AFTER;
+    private int maxRestarts = Integer.MAX_VALUE;
+    private SolverListener listener;
+    private int replicas = DEFAULT_REPLICAS;
+    private double minTemperature = DEFAULT_MIN_TEMPERATURE;
+    private double maxTemperature = DEFAULT_MAX_TEMPERATURE;
+    private long exchangeInterval = DEFAULT_EXCHANGE_INTERVAL;
+
+    /**
+     * Constructor for default options: global fill, swaps of any two
+     * squares and a reheating schedule
+     */
+    public AnnealingOptions() {
+    }
+
+    /**
+     * Constructor copying every setting of other options
+     *
+     * @param other Options to copy
+     */
+    public AnnealingOptions(AnnealingOptions other) {
+        this.fillStrategy = other.fillStrategy;
+        this.moveStrategy = other.moveStrategy;
+        this.seed = other.seed;
+        this.coolingSchedule = other.coolingSchedule;
+        this.maxIterations = other.maxIterations;
+        this.timeLimit = other.timeLimit;
+        this.cancellation = other.cancellation;
+        this.restartAfter = other.restartAfter;
+        this.maxRestarts = other.maxRestarts;
+        this.listener = other.listener;
+        this.replicas = other.replicas;
+        this.minTemperature = other.minTemperature;
+        this.maxTemperature = other.maxTemperature;
+        this.exchangeInterval = other.exchangeInterval;
+    }
+
+    /**
+     * Options that fill each box with a permutation of its missing values
+     * and only swap within boxes, so box constraints always hold
+     *
+     * @return New options using the box-preserving strategy
+     */
+    public static AnnealingOptions boxPreserving() {
+        return new AnnealingOptions()
+                .setFillStrategy(ProbabalisticSudoku.FillStrategy.BOX_PERMUTATION)
+                .setMoveStrategy(MoveStrategy.WITHIN_BOX);
+    }
+
+    public ProbabalisticSudoku.FillStrategy getFillStrategy() {
+        return fillStrategy;
+    }
+
+    public AnnealingOptions setFillStrategy(ProbabalisticSudoku.FillStrategy fillStrategy) {
+        this.fillStrategy = fillStrategy;
+        return this;
+    }
+
+    public MoveStrategy getMoveStrategy() {
+        return moveStrategy;
+    }
+
+    public AnnealingOptions setMoveStrategy(MoveStrategy moveStrategy) {
+        this.moveStrategy = moveStrategy;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Seed for the initial fill and the random moves so that a solve can
+     * be repeated exactly
+     *
+     * @param seed Seed for the random number generators
+     * @return These options
+     */
+    public AnnealingOptions setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public CoolingSchedule getCoolingSchedule() {
+        return coolingSchedule;
+    }
+
+    /**
+     * Schedule deciding the temperature of every move. Each solve works
+     * on its own copy of the schedule.
+     *
+     * @param coolingSchedule Schedule of the temperature
+     * @return These options
+     */
+    public AnnealingOptions setCoolingSchedule(CoolingSchedule coolingSchedule) {
+        this.coolingSchedule = coolingSchedule;
+        return this;
+    }
+
+    public long getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Number of moves after which a solve gives up, counted over all
+     * restarts
+     *
+     * @param maxIterations Maximum number of moves
+     * @return These options
+     */
+    public AnnealingOptions setMaxIterations(long maxIterations) {
+        if(maxIterations < 0) {
+            throw new IllegalArgumentException("Maximum iterations cannot be negative");
+        }
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
+    /**
+     * Wall clock time a solve may take, null when there is no limit
+     *
+     * @return Time limit of a solve
+     */
+    public Duration getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Wall clock time after which a solve gives up
+     *
+     * @param timeLimit Time limit of a solve, null for no limit
+     * @return These options
+     */
+    public AnnealingOptions setTimeLimit(Duration timeLimit) {
+        this.timeLimit = timeLimit;
+        return this;
+    }
+
+    public BooleanSupplier getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Condition checked every 1024 iterations of the annealing solver,
+     * and every 64 moves of each replica in parallel tempering; once it
+     * returns true the solver stops and reports the Sudoku as unsolved
+     *
+     * @param cancellation Condition to stop the solve, or null to never stop
+     * @return These options
+     */
+    public AnnealingOptions setCancellation(BooleanSupplier cancellation) {
+        this.cancellation = cancellation;
+        return this;
+    }
+
+    public long getRestartAfter() {
+        return restartAfter;
+    }
+
+    /**
+     * Number of moves without a new lowest entropy after which the board
+     * is filled again from scratch, 0 to never restart
+     *
+     * @param restartAfter Moves without improvement before a restart
+     * @return These options
+     */
+    public AnnealingOptions setRestartAfter(long restartAfter) {
+        if(restartAfter < 0) {
+            throw new IllegalArgumentException("Moves before a restart cannot be negative");
+        }
+        this.restartAfter = restartAfter;
+        return this;
+    }
+
+    public int getMaxRestarts() {
+        return maxRestarts;
+    }
+
+    /**
+     * Number of restarts after which a stalled solve gives up
+     *
+     * @param maxRestarts Maximum number of restarts
+     * @return These options
+     */
+    public AnnealingOptions setMaxRestarts(int maxRestarts) {
+        if(maxRestarts < 0) {
+            throw new IllegalArgumentException("Maximum restarts cannot be negative");
+        }
+        this.maxRestarts = maxRestarts;
+        return this;
+    }
+
+    public SolverListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Listener told about every event of the solve
+     *
+     * @param listener Receiver of solver events, or null for none
+     * @return These options
+     */
+    public AnnealingOptions setListener(SolverListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public int getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Number of boards ParallelTemperingSolver anneals side by side, each
+     * at its own temperature
+     *
+     * @param replicas Number of replicas, at least 2
+     * @return These options
+     */
+    public AnnealingOptions setReplicas(int replicas) {
+        if(replicas < 2) {
+            throw new IllegalArgumentException("Parallel tempering needs at least 2 replicas");
+        }
+        this.replicas = replicas;
+        return this;
+    }
+
+    public double getMinTemperature() {
+        return minTemperature;
+    }
+
+    public double getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    /**
+     * Temperatures of the coldest and hottest replica of
+     * ParallelTemperingSolver; the others are spaced geometrically between
+     *
+     * @param minTemperature Temperature of the coldest replica
+     * @param maxTemperature Temperature of the hottest replica
+     * @return These options
+     */
+    public AnnealingOptions setTemperatureRange(double minTemperature, double maxTemperature) {
+        if(!(minTemperature > 0 && maxTemperature >= minTemperature)) {
+            throw new IllegalArgumentException("Temperatures must be positive and in order");
+        }
+        this.minTemperature = minTemperature;
+        this.maxTemperature = maxTemperature;
+        return this;
+    }
+
+    public long getExchangeInterval() {
+        return exchangeInterval;
+    }
+
+    /**
+     * Number of moves every replica of ParallelTemperingSolver makes
+     * between two rounds of exchanges
+     *
+     * @param exchangeInterval Moves between exchanges
+     * @return These options
+     */
+    public AnnealingOptions setExchangeInterval(long exchangeInterval) {
+        if(exchangeInterval < 1) {
+            throw new IllegalArgumentException("Moves between exchanges must be positive");
+        }
+        this.exchangeInterval = exchangeInterval;
+        return this;
+    }
+}
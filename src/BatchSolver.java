@@ -0,0 +1,293 @@
+package src;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Solves a file of puzzles, one per line in SudokuFormat, on a pool of
+ * worker threads. Lines are read lazily and at most a fixed number of
+ * puzzles are in flight at once, so memory use does not grow with the size
+ * of the file. Results are handed back in the same order as the input.
+ * Blank lines and lines starting with '#' are skipped.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class BatchSolver {
+    private final Function<int[][], SolverOutput> solver;
+    private final int threads;
+    private final int maxInFlight;
+
+    /**
+     * Result of one puzzle of the batch
+     */
+    public static final class Result {
+        private final long lineNumber;
+        private final String puzzle;
+        private final SolverOutput output;
+        private final String error;
+
+        private Result(long lineNumber, String puzzle, SolverOutput output, String error) {
+            this.lineNumber = lineNumber;
+            this.puzzle = puzzle;
+            this.output = output;
+            this.error = error;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getPuzzle() {
+            return puzzle;
+        }
+
+        /**
+         * Output of the solver, null if the puzzle could not be read
+         *
+         * @return Output of the solver
+         */
+        public SolverOutput getOutput() {
+            return output;
+        }
+
+        /**
+         * Reason the puzzle could not be read or solved, null otherwise
+         *
+         * @return Error message
+         */
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSolved() {
+            return output != null && output.isSolved();
+        }
+
+        /**
+         * Line to write for this puzzle: the solution, "unsolvable" or
+         * "error: " followed by the reason
+         *
+         * @return Output line
+         */
+        public String toLine() {
+            if(error != null) return "error: " + error;
+            if(!output.isSolved()) return "unsolvable";
+            return SudokuFormat.format(output.getSudoku().getBoard());
+        }
+    }
+
+    /**
+     * Totals over a whole batch
+     */
+    public static final class Summary {
+        private final long puzzles;
+        private final long solved;
+        private final long unsolvable;
+        private final long errors;
+        private final long elapsedNanos;
+
+        private Summary(long puzzles, long solved, long unsolvable, long errors, long elapsedNanos) {
+            this.puzzles = puzzles;
+            this.solved = solved;
+            this.unsolvable = unsolvable;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getPuzzles() {
+            return puzzles;
+        }
+
+        public long getSolved() {
+            return solved;
+        }
+
+        public long getUnsolvable() {
+            return unsolvable;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Puzzles finished per second of wall clock time
+         *
+         * @return Throughput of the batch
+         */
+        public double getPuzzlesPerSecond() {
+            return elapsedNanos == 0 ? 0 : puzzles * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d puzzles: %d solved, %d unsolvable, %d errors in %.3f s (%.1f puzzles/s)",
+                    puzzles, solved, unsolvable, errors, elapsedNanos / 1e9, getPuzzlesPerSecond());
+        }
+    }
+
+    /**
+     * Constructor for a batch solver using the dancing links solver
+     *
+     * @param threads Number of worker threads
+     */
+    public BatchSolver(int threads) {
+        this(DancingLinksSolver::SolveSudoku, threads, 4 * threads);
+    }
+
+    /**
+     * Constructor for a batch solver
+     *
+     * @param solver Solver to run on every puzzle; it is called from several threads at once
+     * @param threads Number of worker threads
+     * @param maxInFlight Maximum number of puzzles read but not yet handed back
+     */
+    public BatchSolver(Function<int[][], SolverOutput> solver, int threads, int maxInFlight) {
+        if(threads < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Threads and puzzles in flight must be positive");
+        }
+        this.solver = solver;
+        this.threads = threads;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Solve every puzzle of the input file and write one line per puzzle
+     * to the output file
+     *
+     * @param input File of puzzles
+     * @param output File to write the results to
+     * @return Totals over the batch
+     */
+    public Summary solve(Path input, Path output) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.US_ASCII)) {
+            return solve(input, result -> {
+                try {
+                    writer.write(result.toLine());
+                    writer.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Solve every puzzle of the input file, handing each result to the
+     * sink in input order on the calling thread
+     *
+     * @param input File of puzzles
+     * @param sink Receiver of the results
+     * @return Totals over the batch
+     */
+    public Summary solve(Path input, Consumer<Result> sink) throws IOException {
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        // Bounded queue of pending results in input order, the reader blocks when it is full
+        BlockingQueue<Future<Result>> pending = new ArrayBlockingQueue<>(maxInFlight);
+        CompletableFuture<Result> endOfInput = CompletableFuture.completedFuture(null);
+        // Set by the reader before it queues the end of input, so the consumer sees it there
+        AtomicReference<IOException> readFailure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            try (BufferedReader lines = Files.newBufferedReader(input, StandardCharsets.US_ASCII)) {
+                String line;
+                long lineNumber = 0;
+                while ((line = lines.readLine()) != null) {
+                    lineNumber++;
+                    String puzzle = line.trim();
+                    if(puzzle.isEmpty() || puzzle.startsWith("#")) continue;
+                    long number = lineNumber;
+                    pending.put(workers.submit(() -> solveLine(number, puzzle)));
+                }
+            } catch (IOException e) {
+                readFailure.set(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    pending.put(endOfInput);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "batch-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        long puzzles = 0, solved = 0, unsolvable = 0, errors = 0;
+        try {
+            while (true) {
+                Future<Result> next = pending.take();
+                if(next == endOfInput) {
+                    if(readFailure.get() != null) throw new IOException("Reading the puzzles failed", readFailure.get());
+                    break;
+                }
+                Result result = next.get();
+                puzzles++;
+                if(result.getError() != null) errors++;
+                else if(result.isSolved()) solved++;
+                else unsolvable++;
+                sink.accept(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving batch", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Worker failed", e.getCause());
+        } finally {
+            reader.interrupt();
+            workers.shutdownNow();
+        }
+        return new Summary(puzzles, solved, unsolvable, errors, System.nanoTime() - start);
+    }
+
+    /**
+     * Parse and solve one line, turning failures into an error result
+     */
+    private Result solveLine(long lineNumber, String puzzle) {
+        try {
+            return new Result(lineNumber, puzzle, solver.apply(SudokuFormat.parse(puzzle)), null);
+        } catch (RuntimeException e) {
+            return new Result(lineNumber, puzzle, null, e.getMessage() == null ? e.toString() : e.getMessage());
+        }
+    }
+
+    /**
+     * Solve a file of puzzles from the command line
+     *
+     * @param args input file, output file and optionally the number of threads
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2) {
+            System.err.println("Usage: BatchSolver <input> <output> [threads]");
+            return;
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Summary summary = new BatchSolver(threads).solve(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println(summary);
+    }
+}
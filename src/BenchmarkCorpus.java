@@ -0,0 +1,212 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixed set of puzzles used by the JMH benchmarks in the benchmarks
+ * module and by the tests. The 9x9 puzzles are well known instances; the
+ * larger ones are generated from a fixed seed by shuffling a valid grid
+ * and clearing squares, so every run of the benchmarks sees exactly the
+ * same boards.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public final class BenchmarkCorpus {
+
+    /**
+     * How much work a puzzle is expected to take
+     */
+    public enum Difficulty {
+        EASY,
+        HARD,
+        PATHOLOGICAL
+    }
+
+    /**
+     * A named puzzle of the corpus
+     */
+    public static final class Puzzle {
+        private final String name;
+        private final Difficulty difficulty;
+        private final int[][] board;
+
+        private Puzzle(String name, Difficulty difficulty, int[][] board) {
+            this.name = name;
+            this.difficulty = difficulty;
+            this.board = board;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Difficulty getDifficulty() {
+            return difficulty;
+        }
+
+        public int getSize() {
+            return board.length;
+        }
+
+        /**
+         * Copy of the board, so a caller that changes it leaves the
+         * corpus as it was
+         *
+         * @return Copy of the board
+         */
+        public int[][] getBoard() {
+            int[][] copy = new int[board.length][];
+            for (int i = 0; i < board.length; i++) {
+                copy[i] = board[i].clone();
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Documented bound on the time to solve any EASY puzzle of the corpus
+     * with the in place MRV search, at every size up to 64x64
+     */
+    public static final long EASY_SOLVE_MILLIS = 2_000;
+    /**
+     * Documented bound on the bytes allocated per cell to build a board
+     * with its possible values, or to copy one
+     */
+    public static final long BOARD_BYTES_PER_CELL = 128;
+    /**
+     * Documented bound on the bytes allocated per cell to render a board
+     * with toString
+     */
+    public static final long TEXT_BYTES_PER_CELL = 96;
+
+    private static final long SEED = 20181017L;
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Every puzzle of the corpus: easy, hard and pathological instances
+     * at 9x9, 16x16 and 25x25, and easy instances at 36x36, 49x49 and
+     * 64x64. Below about 60% clues the larger boards are beyond what
+     * search finishes in a reasonable time, so they have no harder tiers.
+     *
+     * @return The corpus
+     */
+    public static List<Puzzle> puzzles() {
+        List<Puzzle> puzzles = new ArrayList<>();
+        puzzles.add(new Puzzle("9x9-easy", Difficulty.EASY, SudokuFormat.parse(
+                "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..")));
+        puzzles.add(new Puzzle("9x9-hard", Difficulty.HARD, SudokuFormat.parse(
+                "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......")));
+        puzzles.add(new Puzzle("9x9-pathological", Difficulty.PATHOLOGICAL, SudokuFormat.parse(
+                "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9")));
+        for (int boxWidth = 4; boxWidth <= 5; boxWidth++) {
+            int size = boxWidth * boxWidth;
+            puzzles.add(new Puzzle(size + "x" + size + "-easy", Difficulty.EASY,
+                    generate(boxWidth, 0.65, SEED + size)));
+            puzzles.add(new Puzzle(size + "x" + size + "-hard", Difficulty.HARD,
+                    generate(boxWidth, 0.55, SEED + 2 * size)));
+            puzzles.add(new Puzzle(size + "x" + size + "-pathological", Difficulty.PATHOLOGICAL,
+                    generate(boxWidth, 0.45, SEED + 3 * size)));
+        }
+        for (int boxWidth = 6; boxWidth <= 8; boxWidth++) {
+            int size = boxWidth * boxWidth;
+            puzzles.add(new Puzzle(size + "x" + size + "-easy", Difficulty.EASY,
+                    generate(boxWidth, 0.65, SEED + size)));
+        }
+        return Collections.unmodifiableList(puzzles);
+    }
+
+    /**
+     * Puzzle of the corpus with the given name, such as "16x16-hard"
+     *
+     * @param name Name of the puzzle
+     * @return The puzzle
+     * @throws IllegalArgumentException If no puzzle has the name
+     */
+    public static Puzzle puzzle(String name) throws IllegalArgumentException {
+        for (Puzzle puzzle : puzzles()) {
+            if(puzzle.getName().equals(name)) return puzzle;
+        }
+        throw new IllegalArgumentException("No puzzle named " + name);
+    }
+
+    /**
+     * Generate a solvable puzzle by shuffling a valid grid and keeping
+     * roughly the given fraction of its squares
+     *
+     * @param boxWidth Width of the boxes of the board
+     * @param clueFraction Fraction of squares to keep
+     * @param seed Seed of the shuffle and the cleared squares
+     * @return Array of the puzzle, 0 for empty squares
+     */
+    static int[][] generate(int boxWidth, double clueFraction, long seed) {
+        Random rand = new Random(seed);
+        int[][] grid = shuffledGrid(boxWidth, rand);
+        for (int[] row : grid) {
+            for (int j = 0; j < row.length; j++) {
+                if(rand.nextDouble() >= clueFraction) row[j] = 0;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * A complete valid grid: the pattern grid with its digits relabelled,
+     * rows shuffled within bands, columns within stacks and the bands and
+     * stacks themselves shuffled
+     *
+     * @param boxWidth Width of the boxes of the board
+     * @param rand Source of the shuffle
+     * @return Array of the grid
+     */
+    static int[][] shuffledGrid(int boxWidth, Random rand) {
+        int size = boxWidth * boxWidth;
+        int[] digits = permutation(size, rand);
+        int[] rows = bandPermutation(boxWidth, rand);
+        int[] columns = bandPermutation(boxWidth, rand);
+
+        int[][] grid = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int r = rows[i];
+                int c = columns[j];
+                grid[i][j] = digits[(boxWidth * (r % boxWidth) + r / boxWidth + c) % size] + 1;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Permutation of rows (or columns) that keeps each band together
+     */
+    private static int[] bandPermutation(int boxWidth, Random rand) {
+        int[] bands = permutation(boxWidth, rand);
+        int[] order = new int[boxWidth * boxWidth];
+        for (int band = 0; band < boxWidth; band++) {
+            int[] within = permutation(boxWidth, rand);
+            for (int k = 0; k < boxWidth; k++) {
+                order[band * boxWidth + k] = bands[band] * boxWidth + within[k];
+            }
+        }
+        return order;
+    }
+
+    private static int[] permutation(int length, Random rand) {
+        int[] values = new int[length];
+        for (int k = 0; k < length; k++) {
+            values[k] = k;
+        }
+        for (int k = length - 1; k > 0; k--) {
+            int swap = rand.nextInt(k + 1);
+            int tmp = values[k];
+            values[k] = values[swap];
+            values[swap] = tmp;
+        }
+        return values;
+    }
+}
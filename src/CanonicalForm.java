@@ -0,0 +1,401 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Canonical form of a puzzle under the symmetries of Sudoku: relabeling
+ * the values, permuting the rows inside a band and the bands, permuting
+ * the columns inside a stack and the stacks, and transposing. Puzzles
+ * that are the same up to these symmetries usually share a canonical
+ * form, so a solution found for one can be mapped back onto the others.
+ *
+ * Rows, columns and values are colored by properties none of the
+ * symmetries change, starting from clue counts and refining each color
+ * with a hash of the colors of the lines and values it meets until no
+ * color splits. The hashes add up the parts they combine, so no sorting
+ * is needed, and rows and columns are hashed alike, so transposing a
+ * puzzle only swaps their colors; the orientation is chosen from them.
+ * Bands and lines are put in color order; where colors tie, every order
+ * of the tied lines and bands is tried, values are relabeled in the order
+ * they are first read, and the smallest board is kept. Isomorphic puzzles
+ * therefore share a form, except for puzzles so symmetric that more than
+ * CANDIDATE_LIMIT orders tie, where ties fall back to the original order;
+ * the mapping back is exact either way.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public final class CanonicalForm {
+    /** Most orders of tied rows and columns tried before ties are broken by position */
+    private static final int CANDIDATE_LIMIT = 64;
+    private static final long PAIR_STRIDE = 0x9E3779B97F4A7C15L;
+
+    private final int[][] board;
+    private final boolean transposed;
+    private final int[] rowOrder;
+    private final int[] columnOrder;
+    private final int[] unlabel;
+
+    private CanonicalForm(int[][] board, boolean transposed, int[] rowOrder, int[] columnOrder, int[] unlabel) {
+        this.board = board;
+        this.transposed = transposed;
+        this.rowOrder = rowOrder;
+        this.columnOrder = columnOrder;
+        this.unlabel = unlabel;
+    }
+
+    /**
+     * Canonical form of a puzzle. The input array is not modified.
+     *
+     * @param sudoku array representing sudoku
+     * @return Canonical form and the transform that produced it
+     */
+    public static CanonicalForm of(int[][] sudoku) {
+        int boxWidth = SudokuGeometry.forSize(sudoku.length).getBoxWidth();
+        long[][] colors = refine(sudoku, boxWidth);
+        long[] rowColors = colors[0].clone();
+        long[] columnColors = colors[1].clone();
+        Arrays.sort(rowColors);
+        Arrays.sort(columnColors);
+        int orientation = Arrays.compare(rowColors, columnColors);
+        if(orientation < 0) return orient(sudoku, false, colors[0], colors[1], boxWidth);
+        if(orientation > 0) return orient(transpose(sudoku), true, colors[1], colors[0], boxWidth);
+        CanonicalForm straight = orient(sudoku, false, colors[0], colors[1], boxWidth);
+        CanonicalForm transposed = orient(transpose(sudoku), true, colors[1], colors[0], boxWidth);
+        return compare(transposed.board, straight.board) < 0 ? transposed : straight;
+    }
+
+    /**
+     * The puzzle after the transform
+     *
+     * @return Canonical board
+     */
+    public int[][] getBoard() {
+        return ProbabalisticSudokuSolver.copy(board);
+    }
+
+    /**
+     * Key identifying the canonical board, equal for equal boards
+     *
+     * @return Canonical board as a string
+     */
+    public String key() {
+        int size = board.length;
+        char[] key = new char[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                key[i * size + j] = (char) board[i][j];
+            }
+        }
+        return new String(key);
+    }
+
+    /**
+     * Map a board in canonical coordinates and labels, such as a solution
+     * of the canonical board, back onto the original puzzle
+     *
+     * @param canonical Board in canonical form
+     * @return Board in the coordinates and labels of the original puzzle
+     */
+    public int[][] toOriginal(int[][] canonical) {
+        int size = canonical.length;
+        int[][] original = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int value = unlabel[canonical[i][j]];
+                if(transposed) original[columnOrder[j]][rowOrder[i]] = value;
+                else original[rowOrder[i]][columnOrder[j]] = value;
+            }
+        }
+        return original;
+    }
+
+    /**
+     * Put the rows and columns of one orientation in canonical order and
+     * relabel the values
+     */
+    private static CanonicalForm orient(int[][] sudoku, boolean transposed, long[] rowColors, long[] columnColors,
+                                        int boxWidth) {
+        int size = sudoku.length;
+        List<int[]> rowOrders = orders(rowColors, boxWidth);
+        List<int[]> columnOrders = orders(columnColors, boxWidth);
+        if(rowOrders.size() * columnOrders.size() > CANDIDATE_LIMIT) {
+            rowOrders = rowOrders.subList(0, 1);
+            columnOrders = columnOrders.subList(0, 1);
+        }
+
+        int[][] best = null;
+        int[] bestRows = null;
+        int[] bestColumns = null;
+        int[][] board = new int[size][size];
+        int[] label = new int[size + 1];
+        for (int[] rowOrder : rowOrders) {
+            for (int[] columnOrder : columnOrders) {
+                if(relabel(sudoku, rowOrder, columnOrder, label, board, best)) {
+                    int[][] swap = best == null ? new int[size][size] : best;
+                    best = board;
+                    board = swap;
+                    bestRows = rowOrder;
+                    bestColumns = columnOrder;
+                }
+            }
+        }
+
+        // Values without a clue take the remaining labels so that a solution can be mapped back
+        Arrays.fill(label, 0);
+        int[] unlabel = new int[size + 1];
+        int next = 1;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int value = sudoku[bestRows[i]][bestColumns[j]];
+                if(value != 0 && label[value] == 0) {
+                    label[value] = next;
+                    unlabel[next++] = value;
+                }
+            }
+        }
+        for (int value = 1; value <= size; value++) {
+            if(label[value] == 0) unlabel[next++] = value;
+        }
+        return new CanonicalForm(best, transposed, bestRows, bestColumns, unlabel);
+    }
+
+    /**
+     * Fill a board with the puzzle in the given order, relabeling values
+     * in the order they are first read, and stop early once it is known
+     * to be larger than the best board so far
+     *
+     * @return Whether the board is smaller than the best board
+     */
+    private static boolean relabel(int[][] sudoku, int[] rowOrder, int[] columnOrder, int[] label, int[][] board,
+                                   int[][] best) {
+        Arrays.fill(label, 0);
+        int next = 1;
+        int comparison = best == null ? -1 : 0;
+        for (int i = 0; i < sudoku.length; i++) {
+            int[] row = sudoku[rowOrder[i]];
+            for (int j = 0; j < sudoku.length; j++) {
+                int value = row[columnOrder[j]];
+                if(value != 0 && label[value] == 0) label[value] = next++;
+                int labeled = value == 0 ? 0 : label[value];
+                if(comparison == 0 && labeled != best[i][j]) {
+                    if(labeled > best[i][j]) return false;
+                    comparison = -1;
+                }
+                board[i][j] = labeled;
+            }
+        }
+        return comparison < 0;
+    }
+
+    /**
+     * Colors of the rows and columns that none of the symmetries change,
+     * refined until they stop splitting. A row starts out colored by its
+     * clue count and is then told apart by the color of its band and the
+     * colors of the columns and values of its clues; columns likewise, and
+     * values by the rows and columns they appear in. Each color is a hash
+     * summing its parts, so the order the parts are met in does not matter.
+     *
+     * @return Row colors and column colors
+     */
+    private static long[][] refine(int[][] sudoku, int boxWidth) {
+        int size = sudoku.length;
+        long[] rowColors = new long[size];
+        long[] columnColors = new long[size];
+        long[] valueColors = new long[size + 1];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int value = sudoku[i][j];
+                if(value != 0) {
+                    rowColors[i]++;
+                    columnColors[j]++;
+                    valueColors[value]++;
+                }
+            }
+        }
+
+        int classes = distinct(rowColors) + distinct(columnColors) + distinct(valueColors);
+        long[] rowParts = new long[size];
+        long[] columnParts = new long[size];
+        long[] valueParts = new long[size + 1];
+        long[] bandColors = new long[boxWidth];
+        long[] stackColors = new long[boxWidth];
+        while (true) {
+            Arrays.fill(rowParts, 0);
+            Arrays.fill(columnParts, 0);
+            Arrays.fill(valueParts, 0);
+            Arrays.fill(bandColors, 0);
+            Arrays.fill(stackColors, 0);
+            for (int k = 0; k < size; k++) {
+                bandColors[k / boxWidth] += mix(rowColors[k]);
+                stackColors[k / boxWidth] += mix(columnColors[k]);
+            }
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    int value = sudoku[i][j];
+                    if(value == 0) continue;
+                    rowParts[i] += pair(columnColors[j], valueColors[value]);
+                    columnParts[j] += pair(rowColors[i], valueColors[value]);
+                    valueParts[value] += pair(rowColors[i], columnColors[j]) + pair(columnColors[j], rowColors[i]);
+                }
+            }
+            for (int k = 0; k < size; k++) {
+                rowColors[k] = mix(pair(rowColors[k], bandColors[k / boxWidth]) + rowParts[k]);
+                columnColors[k] = mix(pair(columnColors[k], stackColors[k / boxWidth]) + columnParts[k]);
+            }
+            for (int value = 0; value <= size; value++) {
+                valueColors[value] = mix(valueColors[value] * PAIR_STRIDE + valueParts[value]);
+            }
+            int refined = distinct(rowColors) + distinct(columnColors) + distinct(valueColors);
+            if(refined == classes) return new long[][] {rowColors, columnColors};
+            classes = refined;
+        }
+    }
+
+    private static long pair(long first, long second) {
+        return mix(first * PAIR_STRIDE + second);
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreading every bit of the input over the
+     * output
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    private static int distinct(long[] colors) {
+        long[] sorted = colors.clone();
+        Arrays.sort(sorted);
+        int count = sorted.length == 0 ? 0 : 1;
+        for (int k = 1; k < sorted.length; k++) {
+            if(sorted[k] != sorted[k - 1]) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Every order of the lines with the bands sorted by color and the
+     * lines of each band sorted by color. Lines or bands with equal colors
+     * may come in any order, so each arrangement of them is listed, or only
+     * the first if there are more than CANDIDATE_LIMIT.
+     */
+    private static List<int[]> orders(long[] colors, int boxWidth) {
+        int size = colors.length;
+        int[][] bandLines = new int[boxWidth][];
+        long[] bandColors = new long[boxWidth];
+        List<List<int[]>> bandOrders = new ArrayList<>();
+        long count = 1;
+        for (int band = 0; band < boxWidth; band++) {
+            int[] lines = new int[boxWidth];
+            for (int k = 0; k < boxWidth; k++) {
+                lines[k] = band * boxWidth + k;
+            }
+            sortByColor(lines, colors);
+            bandLines[band] = lines;
+            for (int line : lines) {
+                bandColors[band] = pair(bandColors[band], colors[line]);
+            }
+            bandOrders.add(arrangements(lines, colors));
+            count *= bandOrders.get(band).size();
+        }
+        int[] bands = new int[boxWidth];
+        for (int band = 0; band < boxWidth; band++) {
+            bands[band] = band;
+        }
+        sortByColor(bands, bandColors);
+        List<int[]> permutations = arrangements(bands, bandColors);
+        count *= permutations.size();
+
+        if(count > CANDIDATE_LIMIT) {
+            permutations = permutations.subList(0, 1);
+            for (int band = 0; band < boxWidth; band++) {
+                bandOrders.set(band, bandOrders.get(band).subList(0, 1));
+            }
+        }
+        List<int[]> orders = new ArrayList<>();
+        for (int[] permutation : permutations) {
+            addOrders(orders, new int[size], permutation, bandOrders, 0, boxWidth);
+        }
+        return orders;
+    }
+
+    private static void addOrders(List<int[]> orders, int[] order, int[] bands, List<List<int[]>> bandOrders,
+                                  int position, int boxWidth) {
+        if(position == boxWidth) {
+            orders.add(order.clone());
+            return;
+        }
+        for (int[] lines : bandOrders.get(bands[position])) {
+            System.arraycopy(lines, 0, order, position * boxWidth, boxWidth);
+            addOrders(orders, order, bands, bandOrders, position + 1, boxWidth);
+        }
+    }
+
+    /**
+     * Insertion sort of items by their colors, stable on ties
+     */
+    private static void sortByColor(int[] items, long[] colors) {
+        for (int k = 1; k < items.length; k++) {
+            int item = items[k];
+            int position = k;
+            while (position > 0 && colors[items[position - 1]] > colors[item]) {
+                items[position] = items[position - 1];
+                position--;
+            }
+            items[position] = item;
+        }
+    }
+
+    /**
+     * Every arrangement of items sorted by color that only swaps items of
+     * equal color, capped at CANDIDATE_LIMIT + 1
+     */
+    private static List<int[]> arrangements(int[] items, long[] colors) {
+        List<int[]> arrangements = new ArrayList<>();
+        arrange(items, colors, new int[items.length], new boolean[items.length], 0, arrangements);
+        return arrangements;
+    }
+
+    private static void arrange(int[] items, long[] colors, int[] arrangement, boolean[] used, int position,
+                                List<int[]> arrangements) {
+        if(arrangements.size() > CANDIDATE_LIMIT) return;
+        if(position == items.length) {
+            arrangements.add(arrangement.clone());
+            return;
+        }
+        for (int k = 0; k < items.length; k++) {
+            if(used[k] || colors[items[k]] != colors[items[position]]) continue;
+            used[k] = true;
+            arrangement[position] = items[k];
+            arrange(items, colors, arrangement, used, position + 1, arrangements);
+            used[k] = false;
+        }
+    }
+
+    private static int[][] transpose(int[][] sudoku) {
+        int size = sudoku.length;
+        int[][] transposed = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                transposed[j][i] = sudoku[i][j];
+            }
+        }
+        return transposed;
+    }
+
+    /**
+     * Lexicographic comparison of two boards of the same size
+     */
+    private static int compare(int[][] a, int[][] b) {
+        for (int k = 0; k < a.length; k++) {
+            int result = Arrays.compare(a[k], b[k]);
+            if(result != 0) return result;
+        }
+        return 0;
+    }
+}
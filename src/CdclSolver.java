@@ -0,0 +1,531 @@
+package src;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * CdclSolver is a conflict-driven clause-learning SAT solver. Variables
+ * are numbered from 1 and a literal is a variable or its negation, as in
+ * the DIMACS format. Propagation watches two literals of every clause;
+ * a conflict is analysed back to its first unique implication point and
+ * the learnt clause sends the search back to the level where it becomes
+ * unit. Branching takes the unassigned variable with the highest VSIDS
+ * activity in its last polarity, and the search restarts on the Luby
+ * sequence, dropping the learnt clauses with the most decision levels
+ * when there are too many of them. Instances are not thread safe.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+class CdclSolver {
+    private static final byte TRUE = 1;
+    private static final byte FALSE = -1;
+    private static final byte UNASSIGNED = 0;
+    private static final int NO_REASON = -1;
+    private static final double VARIABLE_DECAY = 0.95;
+    private static final double RESCALE_LIMIT = 1e100;
+    private static final int RESTART_BASE = 100;
+    private static final int FIRST_LEARNT_LIMIT = 2_000;
+    private static final long CANCELLATION_MASK = 255;
+
+    private final int variableCount;
+    private int[][] clauses = new int[16][];
+    private boolean[] learnt = new boolean[16];
+    private int[] lbd = new int[16];
+    private int clauseCount;
+    private int learntCount;
+    private int learntLimit = FIRST_LEARNT_LIMIT;
+    private boolean inconsistent;
+
+    private final int[][] watches;
+    private final int[] watchSize;
+    private final byte[] values;
+    private final int[] level;
+    private final int[] reason;
+    private final boolean[] polarity;
+    private final int[] trail;
+    private int trailSize;
+    private int propagated;
+    private int[] levelStart = new int[16];
+    private int decisionLevel;
+
+    private final double[] activity;
+    private double activityIncrement = 1;
+    private final int[] heap;
+    private final int[] heapIndex;
+    private int heapSize;
+
+    private final boolean[] seen;
+    private final int[] learntBuffer;
+    private final int[] levelStamp;
+    private int stamp;
+
+    private long decisions;
+    private long conflicts;
+    private long propagations;
+    private long restarts;
+    private boolean cancelled;
+
+    /**
+     * Constructor for a solver over variables 1 to variableCount with no
+     * clauses
+     *
+     * @param variableCount Number of variables
+     */
+    CdclSolver(int variableCount) {
+        this.variableCount = variableCount;
+        int literals = 2 * variableCount;
+        watches = new int[literals][];
+        watchSize = new int[literals];
+        values = new byte[literals];
+        level = new int[variableCount];
+        reason = new int[variableCount];
+        polarity = new boolean[variableCount];
+        trail = new int[variableCount];
+        activity = new double[variableCount];
+        heap = new int[variableCount];
+        heapIndex = new int[variableCount];
+        seen = new boolean[variableCount];
+        learntBuffer = new int[variableCount];
+        levelStamp = new int[variableCount + 1];
+        for (int var = 0; var < variableCount; var++) {
+            heapIndex[var] = -1;
+            heapInsert(var);
+        }
+    }
+
+    /**
+     * Add a clause. Must be called before solve.
+     *
+     * @param literals Literals of the clause, DIMACS numbered
+     * @return False if the clauses added so far cannot all be satisfied
+     */
+    boolean addClause(int... literals) {
+        if(inconsistent) return false;
+        int[] clause = new int[literals.length];
+        int length = 0;
+        for (int literal : literals) {
+            int lit = encode(literal);
+            if(values[lit] == TRUE) return true;
+            if(values[lit] == FALSE) continue;
+            boolean duplicate = false;
+            for (int k = 0; k < length; k++) {
+                if(clause[k] == (lit ^ 1)) return true;
+                if(clause[k] == lit) duplicate = true;
+            }
+            if(!duplicate) clause[length++] = lit;
+        }
+        if(length == 0) {
+            inconsistent = true;
+        } else if(length == 1) {
+            assign(clause[0], NO_REASON);
+            inconsistent = propagate() != NO_REASON;
+        } else {
+            attach(Arrays.copyOf(clause, length), false, 0);
+        }
+        return !inconsistent;
+    }
+
+    /**
+     * Search for an assignment satisfying every clause
+     *
+     * @param cancellation Condition to stop the search, or null to never stop
+     * @return TRUE if one was found, FALSE if there is none, null if the
+     *         search was cancelled
+     */
+    Boolean solve(BooleanSupplier cancellation) {
+        if(inconsistent) return Boolean.FALSE;
+        long restartConflicts = 0;
+        long restartLimit = RESTART_BASE * luby(restarts);
+        long steps = 0;
+        while (true) {
+            int conflict = propagate();
+            if(conflict != NO_REASON) {
+                conflicts++;
+                restartConflicts++;
+                if(decisionLevel == 0) {
+                    inconsistent = true;
+                    return Boolean.FALSE;
+                }
+                learn(conflict);
+                activityIncrement /= VARIABLE_DECAY;
+                continue;
+            }
+            if((++steps & CANCELLATION_MASK) == 0 && cancellation != null && cancellation.getAsBoolean()) {
+                cancelled = true;
+                backjump(0);
+                return null;
+            }
+            if(restartConflicts >= restartLimit) {
+                restarts++;
+                restartConflicts = 0;
+                restartLimit = RESTART_BASE * luby(restarts);
+                backjump(0);
+            }
+            if(learntCount >= learntLimit) {
+                reduceLearnt();
+            }
+            int var = nextBranchVariable();
+            if(var < 0) return Boolean.TRUE;
+            decisions++;
+            if(decisionLevel + 1 >= levelStart.length) levelStart = Arrays.copyOf(levelStart, 2 * levelStart.length);
+            levelStart[++decisionLevel] = trailSize;
+            assign(2 * var + (polarity[var] ? 0 : 1), NO_REASON);
+        }
+    }
+
+    /**
+     * Value of a variable in the assignment found by solve
+     *
+     * @param variable DIMACS numbered variable
+     * @return Whether it is true
+     */
+    boolean value(int variable) {
+        return values[2 * (variable - 1)] == TRUE;
+    }
+
+    long getDecisions() {
+        return decisions;
+    }
+
+    long getConflicts() {
+        return conflicts;
+    }
+
+    long getPropagations() {
+        return propagations;
+    }
+
+    long getRestarts() {
+        return restarts;
+    }
+
+    int getVariableCount() {
+        return variableCount;
+    }
+
+    boolean wasCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Internal literal: twice the 0-based variable, plus one when negated,
+     * so that the negation of a literal is lit ^ 1
+     */
+    private int encode(int literal) {
+        int var = Math.abs(literal) - 1;
+        if(literal == 0 || var >= variableCount) {
+            throw new IllegalArgumentException("No such variable: " + literal);
+        }
+        return 2 * var + (literal < 0 ? 1 : 0);
+    }
+
+    private void attach(int[] clause, boolean isLearnt, int levels) {
+        if(clauseCount == clauses.length) {
+            clauses = Arrays.copyOf(clauses, 2 * clauseCount);
+            learnt = Arrays.copyOf(learnt, 2 * clauseCount);
+            lbd = Arrays.copyOf(lbd, 2 * clauseCount);
+        }
+        clauses[clauseCount] = clause;
+        learnt[clauseCount] = isLearnt;
+        lbd[clauseCount] = levels;
+        if(isLearnt) learntCount++;
+        watch(clause[0], clauseCount);
+        watch(clause[1], clauseCount);
+        clauseCount++;
+    }
+
+    private void watch(int lit, int clause) {
+        int[] list = watches[lit];
+        if(list == null) {
+            list = watches[lit] = new int[4];
+        } else if(watchSize[lit] == list.length) {
+            list = watches[lit] = Arrays.copyOf(list, 2 * list.length);
+        }
+        list[watchSize[lit]++] = clause;
+    }
+
+    private void assign(int lit, int cause) {
+        int var = lit >> 1;
+        values[lit] = TRUE;
+        values[lit ^ 1] = FALSE;
+        level[var] = decisionLevel;
+        reason[var] = cause;
+        trail[trailSize++] = lit;
+    }
+
+    /**
+     * Assign every literal made unit by the assignments not yet propagated.
+     * The first two literals of a clause are the watched ones; when one
+     * becomes false another literal that is not false takes its place, and
+     * if there is none the clause is unit on the other watch or conflicting.
+     *
+     * @return Index of a conflicting clause or NO_REASON
+     */
+    private int propagate() {
+        while (propagated < trailSize) {
+            int falseLit = trail[propagated++] ^ 1;
+            int[] list = watches[falseLit];
+            int size = watchSize[falseLit];
+            int kept = 0;
+            for (int k = 0; k < size; k++) {
+                int index = list[k];
+                int[] clause = clauses[index];
+                if(clause == null) continue;
+                if(clause[0] == falseLit) {
+                    clause[0] = clause[1];
+                    clause[1] = falseLit;
+                }
+                if(values[clause[0]] == TRUE) {
+                    list[kept++] = index;
+                    continue;
+                }
+                boolean moved = false;
+                for (int other = 2; other < clause.length; other++) {
+                    if(values[clause[other]] != FALSE) {
+                        clause[1] = clause[other];
+                        clause[other] = falseLit;
+                        watch(clause[1], index);
+                        moved = true;
+                        break;
+                    }
+                }
+                if(moved) continue;
+                list[kept++] = index;
+                if(values[clause[0]] == FALSE) {
+                    while (++k < size) {
+                        list[kept++] = list[k];
+                    }
+                    watchSize[falseLit] = kept;
+                    propagated = trailSize;
+                    return index;
+                }
+                propagations++;
+                assign(clause[0], index);
+            }
+            watchSize[falseLit] = kept;
+        }
+        return NO_REASON;
+    }
+
+    /**
+     * Analyse a conflict to the first unique implication point, learn the
+     * clause, jump back to the second highest level in it and assert it
+     */
+    private void learn(int conflict) {
+        int length = 1;
+        int pending = 0;
+        int lit = -1;
+        int index = trailSize - 1;
+        int cause = conflict;
+        do {
+            int[] clause = clauses[cause];
+            for (int k = lit < 0 ? 0 : 1; k < clause.length; k++) {
+                int var = clause[k] >> 1;
+                if(seen[var] || level[var] == 0) continue;
+                seen[var] = true;
+                bump(var);
+                if(level[var] == decisionLevel) pending++;
+                else learntBuffer[length++] = clause[k];
+            }
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            lit = trail[index--];
+            cause = reason[lit >> 1];
+            seen[lit >> 1] = false;
+            pending--;
+        } while (pending > 0);
+        learntBuffer[0] = lit ^ 1;
+
+        // Drop literals implied by the rest of the clause through their reason
+        for (int k = 1; k < length; k++) {
+            int var = learntBuffer[k] >> 1;
+            if(reason[var] != NO_REASON && redundant(clauses[reason[var]])) {
+                learntBuffer[k] = ~learntBuffer[k];
+            }
+        }
+        int kept = 1;
+        for (int k = 1; k < length; k++) {
+            int literal = learntBuffer[k];
+            seen[(literal < 0 ? ~literal : literal) >> 1] = false;
+            if(literal >= 0) learntBuffer[kept++] = literal;
+        }
+        length = kept;
+
+        int target = 1;
+        for (int k = 2; k < length; k++) {
+            if(level[learntBuffer[k] >> 1] > level[learntBuffer[target] >> 1]) target = k;
+        }
+        int backLevel = length == 1 ? 0 : level[learntBuffer[target] >> 1];
+        backjump(backLevel);
+        if(length == 1) {
+            assign(learntBuffer[0], NO_REASON);
+            return;
+        }
+        int swap = learntBuffer[1];
+        learntBuffer[1] = learntBuffer[target];
+        learntBuffer[target] = swap;
+        int[] clause = Arrays.copyOf(learntBuffer, length);
+        attach(clause, true, levels(clause));
+        assign(clause[0], clauseCount - 1);
+    }
+
+    /**
+     * Whether every other literal of a reason clause is already in the
+     * learnt clause or fixed at level 0
+     */
+    private boolean redundant(int[] clause) {
+        for (int k = 1; k < clause.length; k++) {
+            int var = clause[k] >> 1;
+            if(!seen[var] && level[var] > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Number of distinct decision levels in a clause
+     */
+    private int levels(int[] clause) {
+        stamp++;
+        int count = 0;
+        for (int lit : clause) {
+            int l = level[lit >> 1];
+            if(levelStamp[l] != stamp) {
+                levelStamp[l] = stamp;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Undo every assignment above a decision level, saving the polarity
+     * of each variable for the next time it is branched on
+     */
+    private void backjump(int target) {
+        if(decisionLevel <= target) return;
+        for (int k = trailSize - 1; k >= levelStart[target + 1]; k--) {
+            int lit = trail[k];
+            int var = lit >> 1;
+            values[lit] = UNASSIGNED;
+            values[lit ^ 1] = UNASSIGNED;
+            polarity[var] = (lit & 1) == 0;
+            if(heapIndex[var] < 0) heapInsert(var);
+        }
+        trailSize = levelStart[target + 1];
+        propagated = trailSize;
+        decisionLevel = target;
+    }
+
+    /**
+     * Delete the half of the learnt clauses spanning the most decision
+     * levels, keeping those that are the reason of an assignment or span
+     * at most two levels, and raise the limit for the next reduction
+     */
+    private void reduceLearnt() {
+        int[] candidates = new int[learntCount];
+        int count = 0;
+        for (int index = 0; index < clauseCount; index++) {
+            int[] clause = clauses[index];
+            if(clause == null || !learnt[index] || lbd[index] <= 2) continue;
+            int var = clause[0] >> 1;
+            if(values[clause[0]] != UNASSIGNED && reason[var] == index) continue;
+            candidates[count++] = index;
+        }
+        Integer[] order = new Integer[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = candidates[k];
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(lbd[b], lbd[a]));
+        for (int k = 0; k < count / 2; k++) {
+            clauses[order[k]] = null;
+            learntCount--;
+        }
+        learntLimit += learntLimit / 10;
+    }
+
+    private int nextBranchVariable() {
+        while (heapSize > 0) {
+            int var = heapRemoveMax();
+            if(values[2 * var] == UNASSIGNED) return var;
+        }
+        return -1;
+    }
+
+    private void bump(int var) {
+        activity[var] += activityIncrement;
+        if(activity[var] > RESCALE_LIMIT) {
+            for (int k = 0; k < variableCount; k++) {
+                activity[k] /= RESCALE_LIMIT;
+            }
+            activityIncrement /= RESCALE_LIMIT;
+        }
+        if(heapIndex[var] >= 0) siftUp(heapIndex[var]);
+    }
+
+    /**
+     * Term of the Luby restart sequence 1, 1, 2, 1, 1, 2, 4, ... counted
+     * from 0
+     */
+    static long luby(long term) {
+        long size = 1;
+        int exponent = 0;
+        while (size < term + 1) {
+            exponent++;
+            size = 2 * size + 1;
+        }
+        while (size - 1 != term) {
+            size = (size - 1) >> 1;
+            exponent--;
+            term %= size;
+        }
+        return 1L << exponent;
+    }
+
+    private void heapInsert(int var) {
+        heap[heapSize] = var;
+        heapIndex[var] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int heapRemoveMax() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        int last = heap[--heapSize];
+        if(heapSize > 0) {
+            heap[0] = last;
+            heapIndex[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int position) {
+        int var = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if(activity[heap[parent]] >= activity[var]) break;
+            heap[position] = heap[parent];
+            heapIndex[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = var;
+        heapIndex[var] = position;
+    }
+
+    private void siftDown(int position) {
+        int var = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if(child >= heapSize) break;
+            if(child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) child++;
+            if(activity[heap[child]] <= activity[var]) break;
+            heap[position] = heap[child];
+            heapIndex[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = var;
+        heapIndex[var] = position;
+    }
+}
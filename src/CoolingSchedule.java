@@ -0,0 +1,227 @@
+package src;
+
+/**
+ * CoolingSchedule decides the temperature of the probabilistic sudoku
+ * solving algorithm. A move that raises the entropy by d is kept with
+ * probability exp(-d / temperature), so a high temperature lets the
+ * search climb out of local minima and a low one makes it greedy.
+ *
+ * A schedule keeps state while a solve runs, so the solver works on a
+ * copy and the same schedule can be given to any number of solves.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public abstract class CoolingSchedule {
+
+    /**
+     * Start a new run of the search
+     *
+     * @param entropy Entropy of the freshly filled board
+     */
+    public abstract void reset(int entropy);
+
+    /**
+     * Temperature to use for the next move
+     *
+     * @return Current temperature, always positive
+     */
+    public abstract double getTemperature();
+
+    /**
+     * Record the outcome of a move
+     *
+     * @param entropy Entropy of the board after the move
+     * @param uphill Whether the move would have raised the entropy
+     * @param accepted Whether the move was kept
+     */
+    public abstract void update(int entropy, boolean uphill, boolean accepted);
+
+    /**
+     * Fresh schedule with the same settings and no state
+     *
+     * @return Copy of this schedule
+     */
+    public abstract CoolingSchedule copy();
+
+    /**
+     * Temperature multiplied by a constant factor after every move,
+     * never going below a small floor
+     *
+     * @param initialTemperature Temperature at the start of every run
+     * @param coolingRate Factor applied after every move, below 1
+     * @return New schedule
+     */
+    public static CoolingSchedule geometric(double initialTemperature, double coolingRate) {
+        return new Geometric(initialTemperature, coolingRate, 0);
+    }
+
+    /**
+     * Geometric cooling that goes back to the initial temperature when the
+     * best entropy of the run has not improved for a number of moves
+     *
+     * @param initialTemperature Temperature at the start of every run
+     * @param coolingRate Factor applied after every move, below 1
+     * @param reheatAfter Moves without improvement before reheating
+     * @return New schedule
+     */
+    public static CoolingSchedule reheating(double initialTemperature, double coolingRate, long reheatAfter) {
+        if(reheatAfter < 1) {
+            throw new IllegalArgumentException("Moves before reheating must be positive");
+        }
+        return new Geometric(initialTemperature, coolingRate, reheatAfter);
+    }
+
+    /**
+     * Temperature that follows the share of uphill moves being kept: it is
+     * lowered while more than the target share is kept and raised while
+     * fewer are
+     *
+     * @param initialTemperature Temperature at the start of every run
+     * @param targetAcceptance Share of uphill moves to keep, between 0 and 1
+     * @return New schedule
+     */
+    public static CoolingSchedule adaptive(double initialTemperature, double targetAcceptance) {
+        return new Adaptive(initialTemperature, targetAcceptance);
+    }
+
+    /**
+     * Temperature of half the lowest entropy seen so far in the run, the
+     * schedule the solver has always used
+     *
+     * @return New schedule
+     */
+    public static CoolingSchedule entropyProportional() {
+        return new EntropyProportional();
+    }
+
+    private static void checkTemperature(double temperature) {
+        if(!(temperature > 0)) {
+            throw new IllegalArgumentException("Temperature must be positive");
+        }
+    }
+
+    private static final class Geometric extends CoolingSchedule {
+        private static final double MIN_TEMPERATURE = 1e-3;
+        private final double initialTemperature;
+        private final double coolingRate;
+        private final long reheatAfter;
+        private double temperature;
+        private int bestEntropy;
+        private long sinceImprovement;
+
+        private Geometric(double initialTemperature, double coolingRate, long reheatAfter) {
+            checkTemperature(initialTemperature);
+            if(!(coolingRate > 0 && coolingRate <= 1)) {
+                throw new IllegalArgumentException("Cooling rate must be in (0, 1]");
+            }
+            this.initialTemperature = initialTemperature;
+            this.coolingRate = coolingRate;
+            this.reheatAfter = reheatAfter;
+        }
+
+        @Override
+        public void reset(int entropy) {
+            temperature = initialTemperature;
+            bestEntropy = entropy;
+            sinceImprovement = 0;
+        }
+
+        @Override
+        public double getTemperature() {
+            return temperature;
+        }
+
+        @Override
+        public void update(int entropy, boolean uphill, boolean accepted) {
+            temperature = Math.max(MIN_TEMPERATURE, temperature * coolingRate);
+            if(reheatAfter == 0) return;
+
+            if(entropy < bestEntropy) {
+                bestEntropy = entropy;
+                sinceImprovement = 0;
+            } else if(++sinceImprovement >= reheatAfter) {
+                temperature = initialTemperature;
+                sinceImprovement = 0;
+            }
+        }
+
+        @Override
+        public CoolingSchedule copy() {
+            return new Geometric(initialTemperature, coolingRate, reheatAfter);
+        }
+    }
+
+    private static final class Adaptive extends CoolingSchedule {
+        private static final int WINDOW = 100;
+        private static final double STEP = 0.95;
+        private final double initialTemperature;
+        private final double targetAcceptance;
+        private double temperature;
+        private int uphillMoves;
+        private int uphillAccepted;
+
+        private Adaptive(double initialTemperature, double targetAcceptance) {
+            checkTemperature(initialTemperature);
+            if(!(targetAcceptance > 0 && targetAcceptance < 1)) {
+                throw new IllegalArgumentException("Target acceptance must be in (0, 1)");
+            }
+            this.initialTemperature = initialTemperature;
+            this.targetAcceptance = targetAcceptance;
+        }
+
+        @Override
+        public void reset(int entropy) {
+            temperature = initialTemperature;
+            uphillMoves = 0;
+            uphillAccepted = 0;
+        }
+
+        @Override
+        public double getTemperature() {
+            return temperature;
+        }
+
+        @Override
+        public void update(int entropy, boolean uphill, boolean accepted) {
+            if(!uphill) return;
+            uphillMoves++;
+            if(accepted) uphillAccepted++;
+            if(uphillMoves == WINDOW) {
+                if(uphillAccepted > targetAcceptance * WINDOW) temperature *= STEP;
+                else temperature /= STEP;
+                uphillMoves = 0;
+                uphillAccepted = 0;
+            }
+        }
+
+        @Override
+        public CoolingSchedule copy() {
+            return new Adaptive(initialTemperature, targetAcceptance);
+        }
+    }
+
+    private static final class EntropyProportional extends CoolingSchedule {
+        private int minEntropy;
+
+        @Override
+        public void reset(int entropy) {
+            minEntropy = Math.max(1, entropy);
+        }
+
+        @Override
+        public double getTemperature() {
+            return minEntropy / 2.0;
+        }
+
+        @Override
+        public void update(int entropy, boolean uphill, boolean accepted) {
+            if(entropy > 0 && entropy < minEntropy) minEntropy = entropy;
+        }
+
+        @Override
+        public CoolingSchedule copy() {
+            return new EntropyProportional();
+        }
+    }
+}
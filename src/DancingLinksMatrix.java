@@ -0,0 +1,303 @@
+package src;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * DancingLinksMatrix is the exact cover matrix of a Sudoku geometry laid
+ * out as Knuth's dancing links in flat int arrays. Every candidate (square,
+ * value) is a row covering one square, one row-value, one column-value and
+ * one box-value constraint. The matrix is built once per geometry and
+ * returned to its original state after every search, so it can be reused
+ * for any number of puzzles of that size. Instances are not thread safe.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+class DancingLinksMatrix {
+    private static final int ROOT = 0;
+    private static final long CANCELLATION_MASK = 255;
+
+    private final SudokuGeometry geometry;
+    private final int columnCount;
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] columnSize;
+    private final boolean[] covered;
+    private long nodes;
+    private boolean cancelled;
+
+    /**
+     * Build the exact cover matrix for boards of the given shape
+     *
+     * @param geometry shape of the boards to solve
+     */
+    DancingLinksMatrix(SudokuGeometry geometry) {
+        this.geometry = geometry;
+        int size = geometry.getSize();
+        int cellCount = geometry.getCellCount();
+        columnCount = 4 * cellCount;
+        int nodeCount = 1 + columnCount + 4 * cellCount * size;
+
+        left = new int[nodeCount];
+        right = new int[nodeCount];
+        up = new int[nodeCount];
+        down = new int[nodeCount];
+        column = new int[nodeCount];
+        columnSize = new int[columnCount + 1];
+        covered = new boolean[columnCount + 1];
+
+        for (int header = 0; header <= columnCount; header++) {
+            left[header] = header == 0 ? columnCount : header - 1;
+            right[header] = header == columnCount ? 0 : header + 1;
+            up[header] = header;
+            down[header] = header;
+            column[header] = header;
+        }
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            int rowOffset = geometry.rowOf(cell) * size;
+            int columnOffset = geometry.columnOf(cell) * size;
+            int boxOffset = geometry.boxOf(cell) * size;
+            for (int digit = 0; digit < size; digit++) {
+                int first = firstNode(cell * size + digit);
+                int[] constraints = {
+                        1 + cell,
+                        1 + cellCount + rowOffset + digit,
+                        1 + 2 * cellCount + columnOffset + digit,
+                        1 + 3 * cellCount + boxOffset + digit
+                };
+                for (int k = 0; k < 4; k++) {
+                    int node = first + k;
+                    int header = constraints[k];
+                    column[node] = header;
+                    up[node] = up[header];
+                    down[node] = header;
+                    down[up[header]] = node;
+                    up[header] = node;
+                    columnSize[header]++;
+                    left[node] = first + (k + 3) % 4;
+                    right[node] = first + (k + 1) % 4;
+                }
+            }
+        }
+    }
+
+    SudokuGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Number of rows tried by the last search
+     *
+     * @return Number of search nodes expanded
+     */
+    long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Whether the last search stopped because it was cancelled
+     *
+     * @return Whether the last search was cancelled
+     */
+    boolean wasCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Solve a board, leaving the matrix as it was found
+     *
+     * @param board Array of the board, 0 for empty squares; filled with the
+     *              solution if one exists
+     * @return Whether the board was solved
+     */
+    boolean solve(int[][] board) {
+        return solve(board, null);
+    }
+
+    /**
+     * Solve a board, leaving the matrix as it was found, giving up once the
+     * cancellation returns true
+     *
+     * @param board Array of the board, 0 for empty squares; filled with the
+     *              solution if one exists
+     * @param cancellation Condition to stop the search, or null to never stop
+     * @return Whether the board was solved
+     */
+    boolean solve(int[][] board, BooleanSupplier cancellation) {
+        int size = geometry.getSize();
+        int cellCount = geometry.getCellCount();
+        int[] clueRows = new int[cellCount];
+        int clueCount = 0;
+        nodes = 0;
+        cancelled = false;
+
+        boolean consistent = true;
+        for (int cell = 0; cell < cellCount && consistent; cell++) {
+            int value = board[geometry.rowOf(cell)][geometry.columnOf(cell)];
+            if(value == 0) continue;
+            if(value < 1 || value > size) {
+                consistent = false;
+                break;
+            }
+            int first = firstNode(cell * size + value - 1);
+            int node = first;
+            do {
+                if(covered[column[node]]) consistent = false;
+                node = right[node];
+            } while (node != first);
+            if(consistent) {
+                selectRow(first);
+                clueRows[clueCount++] = first;
+            }
+        }
+
+        boolean solved = consistent && search(board, cancellation);
+
+        for (int k = clueCount - 1; k >= 0; k--) {
+            deselectRow(clueRows[k]);
+        }
+        return solved;
+    }
+
+    /**
+     * Iterative Algorithm X over the uncovered columns. Every level that is
+     * entered is undone again before returning, so the matrix is left in
+     * the state it was found in.
+     *
+     * @param board Array to write the solution into
+     * @param cancellation Condition to stop the search, or null to never stop
+     * @return Whether a solution was found
+     */
+    private boolean search(int[][] board, BooleanSupplier cancellation) {
+        int size = geometry.getSize();
+        int[] chosen = new int[geometry.getCellCount() + 1];
+        int[] header = new int[geometry.getCellCount() + 1];
+        int level = 0;
+        boolean solved = false;
+        boolean descend = true;
+
+        while (level >= 0) {
+            if(descend) {
+                if(right[ROOT] == ROOT) {
+                    solved = true;
+                    for (int k = 0; k < level; k++) {
+                        int row = (chosen[k] - 1 - columnCount) / 4;
+                        int cell = row / size;
+                        board[geometry.rowOf(cell)][geometry.columnOf(cell)] = row % size + 1;
+                    }
+                    break;
+                }
+                if(cancellation != null && (nodes & CANCELLATION_MASK) == 0 && cancellation.getAsBoolean()) {
+                    cancelled = true;
+                    break;
+                }
+                int best = chooseColumn();
+                header[level] = best;
+                cover(best);
+                chosen[level] = down[best];
+            } else {
+                int row = chosen[level];
+                for (int node = left[row]; node != row; node = left[node]) {
+                    uncover(column[node]);
+                }
+                chosen[level] = down[row];
+            }
+
+            if(chosen[level] == header[level]) {
+                uncover(header[level]);
+                level--;
+                descend = false;
+            } else {
+                nodes++;
+                int row = chosen[level];
+                for (int node = right[row]; node != row; node = right[node]) {
+                    cover(column[node]);
+                }
+                level++;
+                descend = true;
+            }
+        }
+
+        for (int k = level - 1; k >= 0; k--) {
+            int row = chosen[k];
+            for (int node = left[row]; node != row; node = left[node]) {
+                uncover(column[node]);
+            }
+            uncover(header[k]);
+        }
+        return solved;
+    }
+
+    /**
+     * Pick the uncovered column with the fewest rows
+     *
+     * @return Header of the chosen column
+     */
+    private int chooseColumn() {
+        int best = right[ROOT];
+        int bestSize = columnSize[best];
+        for (int header = right[best]; header != ROOT && bestSize > 1; header = right[header]) {
+            if(columnSize[header] < bestSize) {
+                best = header;
+                bestSize = columnSize[header];
+            }
+        }
+        return best;
+    }
+
+    private int firstNode(int row) {
+        return 1 + columnCount + 4 * row;
+    }
+
+    /**
+     * Cover every column of a row, used for the clues of a puzzle
+     */
+    private void selectRow(int first) {
+        int node = first;
+        do {
+            cover(column[node]);
+            node = right[node];
+        } while (node != first);
+    }
+
+    /**
+     * Undo selectRow
+     */
+    private void deselectRow(int first) {
+        int node = left[first];
+        do {
+            uncover(column[node]);
+            node = left[node];
+        } while (node != left[first]);
+    }
+
+    private void cover(int header) {
+        covered[header] = true;
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int row = down[header]; row != header; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                down[up[node]] = down[node];
+                up[down[node]] = up[node];
+                columnSize[column[node]]--;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for (int row = up[header]; row != header; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                columnSize[column[node]]++;
+                down[up[node]] = node;
+                up[down[node]] = node;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+        covered[header] = false;
+    }
+}
@@ -0,0 +1,99 @@
+package src;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Exact cover sudoku solver using Knuth's Algorithm X on dancing links.
+ * Each thread keeps one matrix per geometry and reuses it for every
+ * puzzle of that size.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public abstract class DancingLinksSolver {
+    private static final ThreadLocal<Map<SudokuGeometry, DancingLinksMatrix>> MATRICES =
+            ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Solver Sudoku method for utilizing the dancing links sudoku
+     * solving algorithm
+     *
+     * @param fixedEntries List of fixed entried
+     * @return Solved Sudoku
+     */
+    public static Sudoku SudokuSolver(List<SudokuEntry> fixedEntries) {
+        return SolveSudoku(fixedEntries).getSudoku();
+    }
+
+    /**
+     * Solver Sudoku method for utilizing the dancing links sudoku
+     * solving algorithm
+     *
+     * @param sudoku array representing sudoku
+     * @return Solved Sudoku
+     */
+    public static Sudoku SudokuSolver(int[][] sudoku) {
+        return SolveSudoku(sudoku).getSudoku();
+    }
+
+    /**
+     * Solve a Sudoku of the default size given by its fixed entries
+     *
+     * @param fixedEntries List of fixed entried
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(List<SudokuEntry> fixedEntries) {
+        int[][] board = new int[Sudoku.size][Sudoku.size];
+        for (SudokuEntry entry : fixedEntries) {
+            board[entry.getXPosition()][entry.getYPosition()] = entry.getValue();
+        }
+        return SolveSudoku(board);
+    }
+
+    /**
+     * Solve a Sudoku given as an array. The input array is not modified.
+     *
+     * @param sudoku array representing sudoku
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(int[][] sudoku) {
+        return SolveSudoku(sudoku, null);
+    }
+
+    /**
+     * Solve a Sudoku given as an array, giving up once the cancellation
+     * returns true. The input array is not modified.
+     *
+     * @param sudoku array representing sudoku
+     * @param cancellation Condition to stop the solve, or null to never stop
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(int[][] sudoku, BooleanSupplier cancellation) {
+        SudokuGeometry geometry = SudokuGeometry.forSize(sudoku.length);
+        int[][] board = new int[sudoku.length][];
+        for (int i = 0; i < sudoku.length; i++) {
+            if(sudoku[i].length != sudoku.length) {
+                throw new IllegalArgumentException("Dimension Mismatch");
+            }
+            board[i] = sudoku[i].clone();
+        }
+
+        Map<SudokuGeometry, DancingLinksMatrix> matrices = MATRICES.get();
+        DancingLinksMatrix matrix = matrices.remove(geometry);
+        if(matrix == null) {
+            matrix = new DancingLinksMatrix(geometry);
+        }
+        boolean solved = matrix.solve(board, cancellation);
+        // Only hand the matrix back once the search has restored it
+        matrices.put(geometry, matrix);
+
+        if(solved) {
+            return new SolverOutput(true, new Sudoku(board), matrix.getNodeCount());
+        }
+        return new SolverOutput(false, null, matrix.getNodeCount(), matrix.wasCancelled()
+                ? SolverOutput.Termination.CANCELLED : SolverOutput.Termination.UNSOLVABLE);
+    }
+}
@@ -0,0 +1,106 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An ordered list of deduction strategies, applied to a board until none
+ * of them can rule out anything more. The cheapest strategies come first:
+ * whenever a strategy removes a possible value the board propagates the
+ * singles it left behind and the pipeline starts again from the first
+ * strategy, so a harder technique is only tried when every easier one is
+ * stuck.
+ *
+ * A pipeline keeps no state, so one pipeline can be shared by any number
+ * of solves; what the strategies did is counted in a DeductionReport.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public final class DeductionPipeline {
+    private final List<DeductionStrategy> strategies;
+
+    /**
+     * Constructor for a pipeline of the given strategies, tried in order
+     *
+     * @param strategies Strategies to apply, cheapest first
+     */
+    public DeductionPipeline(List<DeductionStrategy> strategies) {
+        this.strategies = Collections.unmodifiableList(new ArrayList<>(strategies));
+    }
+
+    /**
+     * Pipeline of every strategy in order of rating: pointing pairs,
+     * box/line reduction, naked and hidden pairs, naked and hidden
+     * triples, X-Wing and Swordfish
+     *
+     * @return New pipeline
+     */
+    public static DeductionPipeline standard() {
+        return new DeductionPipeline(Arrays.asList(
+                DeductionStrategy.pointing(),
+                DeductionStrategy.boxLineReduction(),
+                DeductionStrategy.nakedSubset(2),
+                DeductionStrategy.hiddenSubset(2),
+                DeductionStrategy.nakedSubset(3),
+                DeductionStrategy.hiddenSubset(3),
+                DeductionStrategy.fish(2),
+                DeductionStrategy.fish(3)));
+    }
+
+    public List<DeductionStrategy> getStrategies() {
+        return strategies;
+    }
+
+    /**
+     * Empty report for counting what this pipeline does
+     *
+     * @return New report
+     */
+    public DeductionReport newReport() {
+        return new DeductionReport(strategies);
+    }
+
+    /**
+     * Apply the strategies to a board until none of them removes a
+     * possible value or the board runs into a contradiction
+     *
+     * @param sudoku Board to work on, recording to its trail if it has one
+     * @param report Report to count the work in
+     * @return Whether any possible value was removed
+     */
+    public boolean deduce(Sudoku sudoku, DeductionReport report) {
+        boolean progress = false;
+        int k = 0;
+        while (k < strategies.size() && sudoku.isSolvable()) {
+            long start = System.nanoTime();
+            int removed = strategies.get(k).apply(sudoku);
+            report.record(k, removed, System.nanoTime() - start);
+            if(removed > 0) {
+                progress = true;
+                sudoku.autoFillSudoku();
+                k = 0;
+            } else {
+                k++;
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Rate a puzzle by the hardest strategy needed to solve it without
+     * guessing. A puzzle the pipeline cannot finish needs search.
+     *
+     * @param sudoku array representing sudoku
+     * @return Report of the strategies used and the rating
+     */
+    public DeductionReport rate(int[][] sudoku) {
+        Sudoku board = new Sudoku(sudoku);
+        DeductionReport report = newReport();
+        deduce(board, report);
+        report.setSearchNeeded(!board.isSolved());
+        return report;
+    }
+}
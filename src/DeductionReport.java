@@ -0,0 +1,166 @@
+package src;
+
+import java.util.List;
+
+/**
+ * Counts what each strategy of a deduction pipeline did during a solve:
+ * how often it was tried, how often it removed something, how many
+ * possible values it removed and how long it took. The hardest strategy
+ * that removed anything gives the difficulty rating.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class DeductionReport {
+    /** Rating of a puzzle that singles alone solve */
+    public static final int SINGLES_RATING = 1;
+    /** Rating of a puzzle the strategies cannot solve without guessing */
+    public static final int SEARCH_RATING = 10;
+
+    private final List<DeductionStrategy> strategies;
+    private final long[] calls;
+    private final long[] fires;
+    private final long[] eliminations;
+    private final long[] nanos;
+    private boolean searchNeeded;
+
+    DeductionReport(List<DeductionStrategy> strategies) {
+        this.strategies = strategies;
+        this.calls = new long[strategies.size()];
+        this.fires = new long[strategies.size()];
+        this.eliminations = new long[strategies.size()];
+        this.nanos = new long[strategies.size()];
+    }
+
+    /**
+     * Count one application of a strategy
+     *
+     * @param index Position of the strategy in the pipeline
+     * @param removed Number of possible values it removed
+     * @param time Time it took in nanoseconds
+     */
+    synchronized void record(int index, int removed, long time) {
+        calls[index]++;
+        if(removed > 0) fires[index]++;
+        eliminations[index] += removed;
+        nanos[index] += time;
+    }
+
+    /**
+     * Add the counts of another report of the same pipeline
+     *
+     * @param other Report to add
+     */
+    synchronized void add(DeductionReport other) {
+        for (int k = 0; k < calls.length; k++) {
+            calls[k] += other.calls[k];
+            fires[k] += other.fires[k];
+            eliminations[k] += other.eliminations[k];
+            nanos[k] += other.nanos[k];
+        }
+        searchNeeded |= other.searchNeeded;
+    }
+
+    synchronized void setSearchNeeded(boolean searchNeeded) {
+        this.searchNeeded = searchNeeded;
+    }
+
+    public List<DeductionStrategy> getStrategies() {
+        return strategies;
+    }
+
+    /**
+     * Number of times a strategy was tried
+     *
+     * @param strategy Strategy of the pipeline
+     * @return Number of applications
+     */
+    public synchronized long getCalls(DeductionStrategy strategy) {
+        return calls[indexOf(strategy)];
+    }
+
+    /**
+     * Number of times a strategy removed at least one possible value
+     *
+     * @param strategy Strategy of the pipeline
+     * @return Number of times it fired
+     */
+    public synchronized long getFires(DeductionStrategy strategy) {
+        return fires[indexOf(strategy)];
+    }
+
+    /**
+     * Number of possible values a strategy removed
+     *
+     * @param strategy Strategy of the pipeline
+     * @return Number of eliminations
+     */
+    public synchronized long getEliminations(DeductionStrategy strategy) {
+        return eliminations[indexOf(strategy)];
+    }
+
+    /**
+     * Time spent applying a strategy, whether or not it fired
+     *
+     * @param strategy Strategy of the pipeline
+     * @return Time in nanoseconds
+     */
+    public synchronized long getNanos(DeductionStrategy strategy) {
+        return nanos[indexOf(strategy)];
+    }
+
+    /**
+     * Whether the solve had to guess
+     *
+     * @return Whether search was needed
+     */
+    public synchronized boolean isSearchNeeded() {
+        return searchNeeded;
+    }
+
+    /**
+     * Hardest strategy that removed a possible value, null if singles
+     * were enough
+     *
+     * @return Hardest strategy used
+     */
+    public synchronized DeductionStrategy getHardestStrategy() {
+        DeductionStrategy hardest = null;
+        for (int k = 0; k < strategies.size(); k++) {
+            if(fires[k] > 0 && (hardest == null || strategies.get(k).getRating() > hardest.getRating())) {
+                hardest = strategies.get(k);
+            }
+        }
+        return hardest;
+    }
+
+    /**
+     * Difficulty rating: SEARCH_RATING if the solve had to guess,
+     * otherwise the rating of the hardest strategy used, or
+     * SINGLES_RATING if singles were enough
+     *
+     * @return Rating of the puzzle
+     */
+    public synchronized int getRating() {
+        if(searchNeeded) return SEARCH_RATING;
+        DeductionStrategy hardest = getHardestStrategy();
+        return hardest == null ? SINGLES_RATING : hardest.getRating();
+    }
+
+    private int indexOf(DeductionStrategy strategy) {
+        int index = strategies.indexOf(strategy);
+        if(index < 0) {
+            throw new IllegalArgumentException("The strategy is not part of this pipeline");
+        }
+        return index;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder out = new StringBuilder("rating=" + getRating());
+        for (int k = 0; k < strategies.size(); k++) {
+            out.append(String.format(" %s=%d/%d(%.3fms)", strategies.get(k).getName(), fires[k], calls[k], nanos[k] / 1e6));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,360 @@
+package src;
+
+/**
+ * DeductionStrategy rules out possible values of a board by a logical
+ * technique, without guessing. Strategies only remove possible values;
+ * the board places the singles this leaves behind when autoFillSudoku
+ * runs. Every strategy has a rating, and the rating of the hardest
+ * strategy a puzzle needs is its difficulty.
+ *
+ * Strategies keep no state, so one strategy can be used by any number of
+ * boards at once. They work on boards of up to 64 rows, where every
+ * possibility space and every unit fits in a single word, and leave
+ * larger boards alone.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public abstract class DeductionStrategy {
+    private static final int MAX_SIZE = 64;
+
+    private final String name;
+    private final int rating;
+
+    protected DeductionStrategy(String name, int rating) {
+        this.name = name;
+        this.rating = rating;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * How hard the technique is for a person, higher is harder. Singles,
+     * which every board finds by itself, rate 1.
+     *
+     * @return Rating of the technique
+     */
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * Remove every possible value the technique rules out on the board
+     * as it stands
+     *
+     * @param sudoku Board to work on
+     * @return Number of possible values removed
+     */
+    public abstract int apply(Sudoku sudoku);
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Naked pairs (2) or triples (3): n squares of a unit whose possible
+     * values together are only n values, which no other square of the
+     * unit can then take
+     *
+     * @param n Number of squares in the subset
+     * @return New strategy
+     */
+    public static DeductionStrategy nakedSubset(int n) {
+        return new NakedSubset(n);
+    }
+
+    /**
+     * Hidden pairs (2) or triples (3): n values that can only go in the
+     * same n squares of a unit, which can then take no other value
+     *
+     * @param n Number of values in the subset
+     * @return New strategy
+     */
+    public static DeductionStrategy hiddenSubset(int n) {
+        return new HiddenSubset(n);
+    }
+
+    /**
+     * Pointing pairs: a value that can only go in one row or column of a
+     * box cannot go anywhere else in that row or column
+     *
+     * @return New strategy
+     */
+    public static DeductionStrategy pointing() {
+        return new Intersection("pointing", 2, true);
+    }
+
+    /**
+     * Box/line reduction: a value that can only go in one box of a row or
+     * column cannot go anywhere else in that box
+     *
+     * @return New strategy
+     */
+    public static DeductionStrategy boxLineReduction() {
+        return new Intersection("box/line reduction", 2, false);
+    }
+
+    /**
+     * X-Wing (2) or Swordfish (3): a value that can only go in the same n
+     * columns of n rows cannot go anywhere else in those columns, and
+     * likewise with rows and columns swapped
+     *
+     * @param n Number of rows in the pattern
+     * @return New strategy
+     */
+    public static DeductionStrategy fish(int n) {
+        return new Fish(n);
+    }
+
+    /**
+     * Whether the strategies can work on the board
+     */
+    static boolean supports(Sudoku sudoku) {
+        return sudoku.getGeometry().getSize() <= MAX_SIZE;
+    }
+
+    /**
+     * Cells of every row, column and box of the board
+     */
+    static int[][] units(SudokuGeometry geometry) {
+        int size = geometry.getSize();
+        int[][] units = new int[3 * size][];
+        for (int unit = 0; unit < size; unit++) {
+            units[unit] = geometry.rowCells(unit);
+            units[size + unit] = geometry.columnCells(unit);
+            units[2 * size + unit] = geometry.boxCells(unit);
+        }
+        return units;
+    }
+
+    /**
+     * Possible values of a square as a mask, value v in bit v - 1
+     */
+    static long candidates(Sudoku sudoku, int cell) {
+        SudokuGeometry geometry = sudoku.getGeometry();
+        return sudoku.candidateWord(geometry.rowOf(cell), geometry.columnOf(cell), 0);
+    }
+
+    /**
+     * Remove every value of a mask from the possible values of a square
+     *
+     * @return Number of values removed
+     */
+    static int eliminate(Sudoku sudoku, int cell, long values) {
+        SudokuGeometry geometry = sudoku.getGeometry();
+        int removed = 0;
+        for (long bits = values & candidates(sudoku, cell); bits != 0; bits &= bits - 1) {
+            if(sudoku.eliminate(geometry.rowOf(cell), geometry.columnOf(cell),
+                    Long.numberOfTrailingZeros(bits) + 1)) removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Find every set of n of the given masks, each with between 2 and n
+     * bits, whose union has exactly n bits
+     *
+     * @param masks Masks to choose from
+     * @param n Size of the sets
+     * @param action Called with the indices of each set and their union
+     */
+    static void subsets(long[] masks, int n, SubsetAction action) {
+        subsets(masks, n, 0, 0L, new int[n], 0, action);
+    }
+
+    private static void subsets(long[] masks, int n, int from, long union, int[] chosen, int depth,
+                                SubsetAction action) {
+        if(depth == n) {
+            if(Long.bitCount(union) == n) action.accept(chosen, union);
+            return;
+        }
+        for (int k = from; k < masks.length; k++) {
+            int bits = Long.bitCount(masks[k]);
+            if(bits < 2 || bits > n) continue;
+            long next = union | masks[k];
+            if(Long.bitCount(next) > n) continue;
+            chosen[depth] = k;
+            subsets(masks, n, k + 1, next, chosen, depth + 1, action);
+        }
+    }
+
+    /**
+     * Action taken on a set of masks found by subsets
+     */
+    interface SubsetAction {
+        void accept(int[] chosen, long union);
+    }
+
+    private static final class NakedSubset extends DeductionStrategy {
+        private final int n;
+
+        private NakedSubset(int n) {
+            super(n == 2 ? "naked pair" : n == 3 ? "naked triple" : "naked subset " + n, n + 1);
+            this.n = n;
+        }
+
+        @Override
+        public int apply(Sudoku sudoku) {
+            if(!supports(sudoku)) return 0;
+            int removed = 0;
+            for (int[] unit : units(sudoku.getGeometry())) {
+                long[] masks = new long[unit.length];
+                for (int k = 0; k < unit.length; k++) {
+                    masks[k] = candidates(sudoku, unit[k]);
+                }
+                int[] count = {0};
+                subsets(masks, n, (chosen, union) -> {
+                    long inSubset = 0;
+                    for (int k : chosen) {
+                        inSubset |= 1L << k;
+                    }
+                    for (int k = 0; k < unit.length; k++) {
+                        if((inSubset & (1L << k)) == 0) count[0] += eliminate(sudoku, unit[k], union);
+                    }
+                });
+                removed += count[0];
+            }
+            return removed;
+        }
+    }
+
+    private static final class HiddenSubset extends DeductionStrategy {
+        private final int n;
+
+        private HiddenSubset(int n) {
+            super(n == 2 ? "hidden pair" : n == 3 ? "hidden triple" : "hidden subset " + n, n + 1);
+            this.n = n;
+        }
+
+        @Override
+        public int apply(Sudoku sudoku) {
+            if(!supports(sudoku)) return 0;
+            int size = sudoku.getGeometry().getSize();
+            int removed = 0;
+            for (int[] unit : units(sudoku.getGeometry())) {
+                // Squares of the unit where each value can go
+                long[] places = new long[size];
+                for (int k = 0; k < unit.length; k++) {
+                    for (long bits = candidates(sudoku, unit[k]); bits != 0; bits &= bits - 1) {
+                        places[Long.numberOfTrailingZeros(bits)] |= 1L << k;
+                    }
+                }
+                int[] count = {0};
+                subsets(places, n, (chosen, union) -> {
+                    long values = 0;
+                    for (int value : chosen) {
+                        values |= 1L << value;
+                    }
+                    for (long squares = union; squares != 0; squares &= squares - 1) {
+                        count[0] += eliminate(sudoku, unit[Long.numberOfTrailingZeros(squares)], ~values);
+                    }
+                });
+                removed += count[0];
+            }
+            return removed;
+        }
+    }
+
+    private static final class Intersection extends DeductionStrategy {
+        private final boolean fromBox;
+
+        private Intersection(String name, int rating, boolean fromBox) {
+            super(name, rating);
+            this.fromBox = fromBox;
+        }
+
+        @Override
+        public int apply(Sudoku sudoku) {
+            if(!supports(sudoku)) return 0;
+            SudokuGeometry geometry = sudoku.getGeometry();
+            int size = geometry.getSize();
+            int removed = 0;
+            for (int unit = 0; unit < (fromBox ? size : 2 * size); unit++) {
+                int[] cells = fromBox ? geometry.boxCells(unit)
+                        : unit < size ? geometry.rowCells(unit) : geometry.columnCells(unit - size);
+                for (int value = 1; value <= size; value++) {
+                    long bit = 1L << (value - 1);
+                    // Row, column and box shared by every square the value can go in, -1 once they differ
+                    int row = -2;
+                    int column = -2;
+                    int box = -2;
+                    for (int cell : cells) {
+                        if((candidates(sudoku, cell) & bit) == 0) continue;
+                        row = row == -2 || row == geometry.rowOf(cell) ? geometry.rowOf(cell) : -1;
+                        column = column == -2 || column == geometry.columnOf(cell) ? geometry.columnOf(cell) : -1;
+                        box = box == -2 || box == geometry.boxOf(cell) ? geometry.boxOf(cell) : -1;
+                    }
+                    if(row == -2) continue;
+                    if(fromBox) {
+                        if(row >= 0) removed += eliminateOutside(sudoku, geometry.rowCells(row), unit, bit);
+                        if(column >= 0) removed += eliminateOutside(sudoku, geometry.columnCells(column), unit, bit);
+                    } else if(box >= 0) {
+                        for (int cell : geometry.boxCells(box)) {
+                            boolean inLine = unit < size ? geometry.rowOf(cell) == unit
+                                    : geometry.columnOf(cell) == unit - size;
+                            if(!inLine) removed += eliminate(sudoku, cell, bit);
+                        }
+                    }
+                }
+            }
+            return removed;
+        }
+
+        private static int eliminateOutside(Sudoku sudoku, int[] line, int box, long bit) {
+            int removed = 0;
+            for (int cell : line) {
+                if(sudoku.getGeometry().boxOf(cell) != box) removed += eliminate(sudoku, cell, bit);
+            }
+            return removed;
+        }
+    }
+
+    private static final class Fish extends DeductionStrategy {
+        private final int n;
+
+        private Fish(int n) {
+            super(n == 2 ? "X-Wing" : n == 3 ? "Swordfish" : "fish " + n, n + 3);
+            this.n = n;
+        }
+
+        @Override
+        public int apply(Sudoku sudoku) {
+            if(!supports(sudoku)) return 0;
+            SudokuGeometry geometry = sudoku.getGeometry();
+            int size = geometry.getSize();
+            int removed = 0;
+            for (int value = 1; value <= size; value++) {
+                long bit = 1L << (value - 1);
+                for (boolean byRow : new boolean[] {true, false}) {
+                    // Columns of each row (or rows of each column) where the value can go
+                    long[] places = new long[size];
+                    for (int line = 0; line < size; line++) {
+                        int[] cells = byRow ? geometry.rowCells(line) : geometry.columnCells(line);
+                        for (int k = 0; k < size; k++) {
+                            if((candidates(sudoku, cells[k]) & bit) != 0) places[line] |= 1L << k;
+                        }
+                    }
+                    int[] count = {0};
+                    subsets(places, n, (chosen, union) -> {
+                        long base = 0;
+                        for (int line : chosen) {
+                            base |= 1L << line;
+                        }
+                        for (long crossing = union; crossing != 0; crossing &= crossing - 1) {
+                            int cross = Long.numberOfTrailingZeros(crossing);
+                            int[] cells = byRow ? geometry.columnCells(cross) : geometry.rowCells(cross);
+                            for (int k = 0; k < size; k++) {
+                                if((base & (1L << k)) == 0) count[0] += eliminate(sudoku, cells[k], bit);
+                            }
+                        }
+                    });
+                    removed += count[0];
+                }
+            }
+            return removed;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package src;
+
+/**
+ * A generated puzzle with a unique solution, together with that solution
+ * and the seed that reproduces it
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class GeneratedPuzzle {
+    private final int[][] puzzle;
+    private final int[][] solution;
+    private final int clueCount;
+    private final long difficulty;
+    private final int rating;
+    private final long seed;
+
+    public GeneratedPuzzle(int[][] puzzle, int[][] solution, int clueCount, long difficulty, int rating, long seed) {
+        this.puzzle = puzzle;
+        this.solution = solution;
+        this.clueCount = clueCount;
+        this.difficulty = difficulty;
+        this.rating = rating;
+        this.seed = seed;
+    }
+
+    /**
+     * The puzzle, 0 for an empty square
+     *
+     * @return Array representing the puzzle
+     */
+    public int[][] getPuzzle() {
+        return ProbabalisticSudokuSolver.copy(puzzle);
+    }
+
+    /**
+     * The complete grid the puzzle was cut from, its only solution
+     *
+     * @return Array representing the solution
+     */
+    public int[][] getSolution() {
+        return ProbabalisticSudokuSolver.copy(solution);
+    }
+
+    public int getClueCount() {
+        return clueCount;
+    }
+
+    /**
+     * Search nodes needed to prove the solution of the puzzle unique
+     *
+     * @return Difficulty of the puzzle
+     */
+    public long getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Rating of the hardest deduction strategy needed to solve the puzzle
+     * without guessing, DeductionReport.SEARCH_RATING if it cannot be
+     *
+     * @return Rating of the puzzle
+     */
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * Seed that generates this puzzle again with the same options
+     *
+     * @return Seed of the puzzle
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return SudokuFormat.format(puzzle);
+    }
+}
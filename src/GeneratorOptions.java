@@ -0,0 +1,215 @@
+package src;
+
+/**
+ * GeneratorOptions collects the settings for generating puzzles. Every
+ * setter returns the options so that settings can be chained.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class GeneratorOptions {
+    static final long DEFAULT_CHECK_BUDGET = 2_000;
+
+    /**
+     * Pattern the clues of a generated puzzle keep. Clues are removed a
+     * whole orbit of the pattern at a time.
+     */
+    public enum Symmetry {
+        /** Clues are removed one at a time */
+        NONE,
+        /** The clues are unchanged by a half turn of the board */
+        ROTATIONAL,
+        /** The clues are unchanged by a reflection in the middle column */
+        MIRROR,
+        /** The clues are unchanged by a reflection in the main diagonal */
+        DIAGONAL
+    }
+
+    private int size = 9;
+    private Symmetry symmetry = Symmetry.ROTATIONAL;
+    private int targetClues;
+    private long targetDifficulty;
+    private long checkBudget = DEFAULT_CHECK_BUDGET;
+    private DeductionPipeline deductions = DeductionPipeline.standard();
+    private int targetRating;
+    private int maxRating;
+    private long seed = System.nanoTime();
+
+    /**
+     * Constructor for default options: 9x9 puzzles with rotational
+     * symmetry and as few clues as can be removed
+     */
+    public GeneratorOptions() {
+    }
+
+    /**
+     * Constructor copying every setting of other options
+     *
+     * @param other Options to copy
+     */
+    public GeneratorOptions(GeneratorOptions other) {
+        this.size = other.size;
+        this.symmetry = other.symmetry;
+        this.targetClues = other.targetClues;
+        this.targetDifficulty = other.targetDifficulty;
+        this.checkBudget = other.checkBudget;
+        this.deductions = other.deductions;
+        this.targetRating = other.targetRating;
+        this.maxRating = other.maxRating;
+        this.seed = other.seed;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Side length of the generated puzzles, a square number such as 9, 16
+     * or 25
+     *
+     * @param size Side length of the board
+     * @return These options
+     */
+    public GeneratorOptions setSize(int size) {
+        SudokuGeometry.forSize(size);
+        this.size = size;
+        return this;
+    }
+
+    public Symmetry getSymmetry() {
+        return symmetry;
+    }
+
+    public GeneratorOptions setSymmetry(Symmetry symmetry) {
+        this.symmetry = symmetry;
+        return this;
+    }
+
+    public int getTargetClues() {
+        return targetClues;
+    }
+
+    /**
+     * Stop removing clues once there are this many or fewer. With 0 clues
+     * are removed until none can be removed without losing uniqueness.
+     *
+     * @param targetClues Number of clues to stop at
+     * @return These options
+     */
+    public GeneratorOptions setTargetClues(int targetClues) {
+        if(targetClues < 0) {
+            throw new IllegalArgumentException("The target clue count must not be negative");
+        }
+        this.targetClues = targetClues;
+        return this;
+    }
+
+    public long getTargetDifficulty() {
+        return targetDifficulty;
+    }
+
+    /**
+     * Stop removing clues once proving the solution unique takes at least
+     * this many search nodes. With 0 the difficulty is not a target.
+     *
+     * @param targetDifficulty Search nodes of the uniqueness proof to stop at
+     * @return These options
+     */
+    public GeneratorOptions setTargetDifficulty(long targetDifficulty) {
+        if(targetDifficulty < 0) {
+            throw new IllegalArgumentException("The target difficulty must not be negative");
+        }
+        this.targetDifficulty = targetDifficulty;
+        return this;
+    }
+
+    public long getCheckBudget() {
+        return checkBudget;
+    }
+
+    /**
+     * Largest number of search nodes a single uniqueness check may take.
+     * A removal whose check runs out of budget is undone, which keeps
+     * large boards from stalling on one hard check.
+     *
+     * @param checkBudget Search nodes per uniqueness check
+     * @return These options
+     */
+    public GeneratorOptions setCheckBudget(long checkBudget) {
+        if(checkBudget < 1) {
+            throw new IllegalArgumentException("The check budget must be at least 1");
+        }
+        this.checkBudget = checkBudget;
+        return this;
+    }
+
+    public DeductionPipeline getDeductions() {
+        return deductions;
+    }
+
+    /**
+     * Deduction strategies used to rate the puzzles
+     *
+     * @param deductions Pipeline of strategies
+     * @return These options
+     */
+    public GeneratorOptions setDeductions(DeductionPipeline deductions) {
+        this.deductions = deductions;
+        return this;
+    }
+
+    public int getTargetRating() {
+        return targetRating;
+    }
+
+    /**
+     * Stop removing clues once the puzzle rates at least this high. With
+     * 0 the rating is not a target.
+     *
+     * @param targetRating Rating of the deduction strategies to stop at
+     * @return These options
+     */
+    public GeneratorOptions setTargetRating(int targetRating) {
+        if(targetRating < 0) {
+            throw new IllegalArgumentException("The target rating must not be negative");
+        }
+        this.targetRating = targetRating;
+        return this;
+    }
+
+    public int getMaxRating() {
+        return maxRating;
+    }
+
+    /**
+     * Undo any removal that makes the puzzle rate higher than this, for
+     * example DeductionReport.SINGLES_RATING for puzzles solved by
+     * singles alone. With 0 any rating is allowed.
+     *
+     * @param maxRating Highest rating allowed
+     * @return These options
+     */
+    public GeneratorOptions setMaxRating(int maxRating) {
+        if(maxRating < 0) {
+            throw new IllegalArgumentException("The maximum rating must not be negative");
+        }
+        this.maxRating = maxRating;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Seed for the grid and the order clues are removed in, so that a
+     * puzzle can be generated again exactly
+     *
+     * @param seed Seed for the random number generators
+     * @return These options
+     */
+    public GeneratorOptions setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+}
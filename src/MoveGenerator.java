@@ -0,0 +1,91 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Picks random pairs of squares to swap, either anywhere on the board
+ * or within a single box. Squares that are fixed are never picked.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+final class MoveGenerator {
+    private final int size;
+    private final Random rand;
+    private final int[][] groups;
+    private final int[] freeCells;
+    private final int[] groupOfCell;
+    int x1;
+    int y1;
+    int x2;
+    int y2;
+
+    MoveGenerator(ProbabalisticSudoku sudoku, AnnealingOptions.MoveStrategy strategy, Random rand) {
+        SudokuGeometry geometry = sudoku.getGeometry();
+        this.size = geometry.getSize();
+        this.rand = rand;
+
+        List<int[]> freeGroups = new ArrayList<>();
+        if(strategy == AnnealingOptions.MoveStrategy.WITHIN_BOX) {
+            for (int box = 0; box < size; box++) {
+                addGroup(freeGroups, sudoku, geometry.boxCells(box));
+            }
+        } else {
+            int[] cells = new int[geometry.getCellCount()];
+            for (int cell = 0; cell < cells.length; cell++) {
+                cells[cell] = cell;
+            }
+            addGroup(freeGroups, sudoku, cells);
+        }
+        groups = freeGroups.toArray(new int[0][]);
+
+        int count = 0;
+        for (int[] group : groups) {
+            count += group.length;
+        }
+        freeCells = new int[count];
+        groupOfCell = new int[count];
+        count = 0;
+        for (int g = 0; g < groups.length; g++) {
+            for (int cell : groups[g]) {
+                freeCells[count] = cell;
+                groupOfCell[count++] = g;
+            }
+        }
+    }
+
+    private static void addGroup(List<int[]> groups, ProbabalisticSudoku sudoku, int[] cells) {
+        SudokuGeometry geometry = sudoku.getGeometry();
+        int[] free = new int[cells.length];
+        int count = 0;
+        for (int cell : cells) {
+            if(!sudoku.isFixed(geometry.rowOf(cell), geometry.columnOf(cell))) free[count++] = cell;
+        }
+        if(count >= 2) groups.add(Arrays.copyOf(free, count));
+    }
+
+    /**
+     * Whether there is any pair of squares to swap
+     */
+    boolean hasMoves() {
+        return freeCells.length > 0;
+    }
+
+    /**
+     * Pick the next pair of distinct squares: a random free square and
+     * a random other square of its group
+     */
+    void next() {
+        int first = rand.nextInt(freeCells.length);
+        int[] group = groups[groupOfCell[first]];
+        int second = group[rand.nextInt(group.length - 1)];
+        if(second == freeCells[first]) second = group[group.length - 1];
+        x1 = freeCells[first] / size;
+        y1 = freeCells[first] % size;
+        x2 = second / size;
+        y2 = second % size;
+    }
+}
@@ -0,0 +1,187 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parallel version of the (DFS) sudoku solving algorithm. The top levels
+ * of the search tree are split into fork/join tasks that idle workers can
+ * steal; below the split each task searches its subtree in place. The
+ * first task to find a solution stops every other task.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public abstract class ParallelSudokuSolver {
+    private static final int MAX_SPLIT_DEPTH = 12;
+    private static final int SURPLUS_TASKS = 3;
+
+    /**
+     * Solver Sudoku method for utilizing the parallel (DFS) sudoku
+     * solving algorithm on the common pool
+     *
+     * @param fixedEntries List of fixed entried
+     * @return Solved Sudoku
+     */
+    public static Sudoku SudokuSolver(List<SudokuEntry> fixedEntries) {
+        return SolveSudoku(new Sudoku(fixedEntries), defaultOptions(), ForkJoinPool.commonPool()).getSudoku();
+    }
+
+    /**
+     * Solver Sudoku method for utilizing the parallel (DFS) sudoku
+     * solving algorithm on the common pool
+     *
+     * @param sudoku array representing sudoku
+     * @return Solved Sudoku
+     */
+    public static Sudoku SudokuSolver(int[][] sudoku) {
+        return SolveSudoku(new Sudoku(sudoku), defaultOptions(), ForkJoinPool.commonPool()).getSudoku();
+    }
+
+    /**
+     * Solve a Sudoku on the given pool. The search mode of the options is
+     * ignored: subtrees below the split are always searched in place.
+     *
+     * @param sudoku array representing sudoku
+     * @param options Settings for the solve
+     * @param pool Pool to run the search tasks on
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(int[][] sudoku, SolverOptions options, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        Sudoku startingSudoku = new Sudoku(sudoku);
+        long setupNanos = System.nanoTime() - start;
+        SolverOutput output = SolveSudoku(startingSudoku, options, pool);
+        output.getStatistics().setupNanos = setupNanos;
+        if(options.getListener() != null) options.getListener().onFinish(output);
+        return output;
+    }
+
+    private static SolverOptions defaultOptions() {
+        return new SolverOptions().setVariableOrdering(SolverOptions.VariableOrdering.MRV);
+    }
+
+    /**
+     * State shared by every task of a single solve
+     */
+    private static final class Search {
+        private final SolverOptions options;
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        private final AtomicReference<Sudoku> solution = new AtomicReference<>();
+        private final SolverStatistics statistics = new SolverStatistics();
+        private final BooleanSupplier cancellation;
+
+        private Search(SolverOptions options) {
+            BooleanSupplier external = options.getCancellation();
+            this.cancellation = external == null ? stopped::get
+                    : () -> stopped.get() || external.getAsBoolean();
+            this.options = new SolverOptions(options)
+                    .setSearchMode(SolverOptions.SearchMode.IN_PLACE)
+                    .setCancellation(cancellation);
+        }
+
+        private void publish(Sudoku sudoku) {
+            if(solution.compareAndSet(null, sudoku)) {
+                stopped.set(true);
+            }
+        }
+    }
+
+    /**
+     * Run the deduction strategies of the options, if any, on a board that
+     * is still solvable
+     */
+    private static void deduce(Sudoku sudoku, SolverOptions options, SolverStatistics statistics) {
+        DeductionPipeline deductions = options.getDeductions();
+        if(deductions != null && sudoku.isSolvable()) {
+            deductions.deduce(sudoku, statistics.deductions(deductions));
+        }
+    }
+
+    private static SolverOutput SolveSudoku(Sudoku sudoku, SolverOptions options, ForkJoinPool pool) {
+        Search search = new Search(options);
+        long start = System.nanoTime();
+        deduce(sudoku, options, search.statistics);
+        if(sudoku.isSolved()) {
+            search.publish(sudoku);
+        } else if(sudoku.isSolvable()) {
+            pool.invoke(new SearchTask(sudoku, 0, search, options.getSeed()));
+        }
+        search.statistics.searchNanos = System.nanoTime() - start;
+
+        Sudoku solution = search.solution.get();
+        SolverOutput.Termination termination = solution != null ? SolverOutput.Termination.SOLVED
+                : search.cancellation.getAsBoolean() ? SolverOutput.Termination.CANCELLED
+                : SolverOutput.Termination.UNSOLVABLE;
+        return new SolverOutput(solution != null, solution, termination, search.statistics);
+    }
+
+    /**
+     * Task searching the subtree below one board
+     */
+    private static final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Sudoku sudoku;
+        private final int depth;
+        private final Search search;
+        private final long seed;
+
+        private SearchTask(Sudoku sudoku, int depth, Search search, long seed) {
+            this.sudoku = sudoku;
+            this.depth = depth;
+            this.search = search;
+            this.seed = seed;
+        }
+
+        @Override
+        protected void compute() {
+            if(search.cancellation.getAsBoolean()) return;
+
+            if(depth >= MAX_SPLIT_DEPTH || getSurplusQueuedTaskCount() > SURPLUS_TASKS) {
+                SolverOutput output = SudokuSolver.SolveSudoku(sudoku,
+                        new SolverOptions(search.options).setSeed(seed));
+                search.statistics.add(output.getStatistics());
+                if(output.isSolved()) search.publish(output.getSudoku());
+                return;
+            }
+
+            Random rand = new Random(seed);
+            int cell = SudokuSolver.selectSquare(sudoku, search.options, rand);
+            SudokuGeometry geometry = sudoku.getGeometry();
+            int i = geometry.rowOf(cell);
+            int j = geometry.columnOf(cell);
+
+            SolverListener listener = search.options.getListener();
+            SolverStatistics statistics = new SolverStatistics();
+            List<SearchTask> children = new ArrayList<>();
+            for (int value : SudokuSolver.orderValues(sudoku, i, j, search.options, rand)) {
+                if(search.cancellation.getAsBoolean()) break;
+                statistics.nodes++;
+                if(listener != null) listener.onGuess(i, j, value);
+                Sudoku child = sudoku.cloneSudoku();
+                long propagated = child.getPropagationCount();
+                child.addValidEntry(i, j, value);
+                deduce(child, search.options, statistics);
+                statistics.propagations += child.getPropagationCount() - propagated;
+                if(child.isSolved()) {
+                    search.publish(child);
+                    break;
+                } else if(child.isSolvable()) {
+                    children.add(new SearchTask(child, depth + 1, search, rand.nextLong()));
+                } else {
+                    statistics.contradictions++;
+                    if(listener != null) listener.onContradiction(i, j, value);
+                }
+            }
+            search.statistics.add(statistics);
+            invokeAll(children);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parallel tempering version of the probabilistic sudoku solving
+ * algorithm. Several replicas of the board are annealed side by side, each
+ * at a fixed temperature of a geometric ladder, on the threads of a
+ * fork/join pool. After every round of moves neighbouring replicas may
+ * swap boards under the Metropolis criterion, so a board stuck in a local
+ * minimum of a cold replica can be carried off by a hotter one. The solve
+ * stops as soon as any replica reaches zero entropy.
+ *
+ * Every replica has its own random number generator seeded from the
+ * options, and exchanges only happen between rounds, so a solve that runs
+ * out of its iteration budget is repeatable for a given seed.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public abstract class ParallelTemperingSolver {
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+    private static final int CHECK_INTERVAL = 64;
+
+    /**
+     * Solver Sudoku method for utilizing the parallel tempering sudoku
+     * solving algorithm on the common pool
+     *
+     * @param sudoku array representing sudoku
+     * @return Solved Sudoku, or null if the solver stopped without
+     *         solving it
+     */
+    public static Sudoku SudokuSolver(int[][] sudoku) {
+        SolverOutput output = SolveSudoku(sudoku, AnnealingOptions.boxPreserving(), ForkJoinPool.commonPool());
+        return output.isSolved() ? output.getSudoku() : null;
+    }
+
+    /**
+     * Solve a Sudoku on the given pool. The fill and move strategies,
+     * seed, budgets, cancellation, listener and tempering settings of the
+     * options are used; the cooling schedule and restarts are not, since
+     * every replica keeps its temperature.
+     *
+     * @param sudoku array representing sudoku
+     * @param options Settings for the solve
+     * @param pool Pool to run the replicas on
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(int[][] sudoku, AnnealingOptions options, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        Search search = new Search(sudoku, options);
+        search.statistics.setupNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        SolverOutput.Termination termination = search.run(pool);
+        search.statistics.searchNanos = System.nanoTime() - start;
+
+        for (Replica replica : search.replicas) {
+            search.statistics.nodes += replica.iterations;
+            search.statistics.acceptedSwaps += replica.accepts;
+            search.statistics.rejectedSwaps += replica.iterations - replica.accepts;
+        }
+        boolean solved = termination == SolverOutput.Termination.SOLVED;
+        SolverOutput output = new SolverOutput(solved,
+                termination == SolverOutput.Termination.UNSOLVABLE ? null : search.best(),
+                termination, search.statistics);
+        if(options.getListener() != null) options.getListener().onFinish(output);
+        return output;
+    }
+
+    /**
+     * One rung of the temperature ladder. The board moves between rungs
+     * on exchanges; the temperature, random numbers and counters stay.
+     */
+    private static final class Replica {
+        private final double temperature;
+        private final Random rand;
+        private final MoveGenerator moves;
+        private ProbabalisticSudoku sudoku;
+        private long iterations;
+        private long accepts;
+
+        private Replica(ProbabalisticSudoku sudoku, double temperature, Random rand,
+                        AnnealingOptions.MoveStrategy strategy) {
+            this.sudoku = sudoku;
+            this.temperature = temperature;
+            this.rand = rand;
+            this.moves = new MoveGenerator(sudoku, strategy, rand);
+        }
+    }
+
+    /**
+     * State of a single solve
+     */
+    private static final class Search {
+        private final AnnealingOptions options;
+        private final List<Replica> replicas = new ArrayList<>();
+        private final Random exchangeRand;
+        private final AtomicBoolean solved = new AtomicBoolean();
+        private final SolverStatistics statistics = new SolverStatistics();
+        private final long deadline;
+
+        private Search(int[][] sudoku, AnnealingOptions options) {
+            this.options = options;
+            this.exchangeRand = new Random(options.getSeed());
+            this.deadline = options.getTimeLimit() == null ? 0
+                    : System.nanoTime() + options.getTimeLimit().toNanos();
+
+            int count = options.getReplicas();
+            double ratio = options.getMaxTemperature() / options.getMinTemperature();
+            ProbabalisticSudoku first = null;
+            for (int k = 0; k < count; k++) {
+                long seed = options.getSeed() + (k + 1) * SEED_STRIDE;
+                // Only the first replica propagates the clues; the rest reuse its fixed squares
+                ProbabalisticSudoku board = first == null
+                        ? new ProbabalisticSudoku(sudoku, options.getFillStrategy(), seed)
+                        : first.refill(options.getFillStrategy(), seed);
+                if(first == null) first = board;
+                double temperature = options.getMinTemperature() * Math.pow(ratio, k / (double)(count - 1));
+                replicas.add(new Replica(board, temperature, new Random(seed + 1), options.getMoveStrategy()));
+            }
+        }
+
+        /**
+         * Alternate rounds of moves on every replica with rounds of
+         * exchanges until a replica is solved or a budget runs out
+         */
+        private SolverOutput.Termination run(ForkJoinPool pool) {
+            int bestEntropy = best().getEntropy();
+            statistics.recordEntropy(0, bestEntropy);
+            if(bestEntropy == 0) return SolverOutput.Termination.SOLVED;
+            if(!replicas.get(0).moves.hasMoves()) return SolverOutput.Termination.UNSOLVABLE;
+
+            long done = 0;
+            for (int round = 0; ; round++) {
+                if(done >= options.getMaxIterations()) return SolverOutput.Termination.ITERATION_BUDGET;
+                if(isPastDeadline()) return SolverOutput.Termination.TIME_BUDGET;
+                if(isCancelled()) return SolverOutput.Termination.CANCELLED;
+
+                long moves = Math.min(options.getExchangeInterval(), options.getMaxIterations() - done);
+                pool.invoke(new Round(this, moves));
+                done += moves;
+
+                int entropy = best().getEntropy();
+                if(entropy < bestEntropy) {
+                    bestEntropy = entropy;
+                    statistics.recordEntropy(done, entropy);
+                }
+                if(solved.get()) return SolverOutput.Termination.SOLVED;
+                exchange(round % 2);
+            }
+        }
+
+        /**
+         * Offer every other pair of neighbouring rungs a swap of boards,
+         * starting from the given rung so that odd and even pairs alternate
+         */
+        private void exchange(int first) {
+            for (int k = first; k + 1 < replicas.size(); k += 2) {
+                Replica colder = replicas.get(k);
+                Replica hotter = replicas.get(k + 1);
+                double exponent = (1 / colder.temperature - 1 / hotter.temperature)
+                        * (colder.sudoku.getEntropy() - hotter.sudoku.getEntropy());
+                if(exponent >= 0 || exchangeRand.nextDouble() < Math.exp(exponent)) {
+                    ProbabalisticSudoku board = colder.sudoku;
+                    colder.sudoku = hotter.sudoku;
+                    hotter.sudoku = board;
+                    statistics.exchanges++;
+                }
+            }
+        }
+
+        private boolean isCancelled() {
+            return options.getCancellation() != null && options.getCancellation().getAsBoolean();
+        }
+
+        private boolean isPastDeadline() {
+            return deadline != 0 && System.nanoTime() - deadline > 0;
+        }
+
+        /**
+         * Board with the lowest entropy over all replicas
+         */
+        private ProbabalisticSudoku best() {
+            ProbabalisticSudoku best = replicas.get(0).sudoku;
+            for (Replica replica : replicas) {
+                if(replica.sudoku.getEntropy() < best.getEntropy()) best = replica.sudoku;
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Task running one round of moves on every replica
+     */
+    private static final class Round extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final long moves;
+
+        private Round(Search search, long moves) {
+            this.search = search;
+            this.moves = moves;
+        }
+
+        @Override
+        protected void compute() {
+            List<ReplicaTask> tasks = new ArrayList<>();
+            for (Replica replica : search.replicas) {
+                tasks.add(new ReplicaTask(search, replica, moves));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Task annealing one replica at its temperature for a round
+     */
+    private static final class ReplicaTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final Replica replica;
+        private final long moves;
+
+        private ReplicaTask(Search search, Replica replica, long moves) {
+            this.search = search;
+            this.replica = replica;
+            this.moves = moves;
+        }
+
+        @Override
+        protected void compute() {
+            ProbabalisticSudoku sudoku = replica.sudoku;
+            MoveGenerator generator = replica.moves;
+            Random rand = replica.rand;
+            SolverListener listener = search.options.getListener();
+            long accepts = 0;
+            long k = 0;
+            while (k < moves && sudoku.getEntropy() > 0) {
+                if(k % CHECK_INTERVAL == 0 && (search.solved.get() || search.isPastDeadline() || search.isCancelled())) break;
+                k++;
+
+                generator.next();
+                int entropyChange = sudoku.swapDelta(generator.x1, generator.y1, generator.x2, generator.y2);
+                boolean accepted = entropyChange <= 0
+                        || rand.nextDouble() < Math.exp(-entropyChange / replica.temperature);
+                if(accepted) {
+                    sudoku.swapSquares(generator.x1, generator.y1, generator.x2, generator.y2);
+                    accepts++;
+                }
+                if(listener != null) listener.onMove(replica.iterations + k, sudoku.getEntropy(), accepted);
+            }
+            replica.iterations += k;
+            replica.accepts += accepts;
+            if(sudoku.getEntropy() == 0) search.solved.set(true);
+        }
+    }
+}
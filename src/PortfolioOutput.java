@@ -0,0 +1,44 @@
+package src;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Output of a portfolio solve: the first verified solution together with
+ * the name of the strategy that found it and the output of every strategy
+ * that was raced
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class PortfolioOutput extends SolverOutput {
+    private final String winner;
+    private final Map<String, SolverOutput> strategyOutputs;
+
+    public PortfolioOutput(boolean isSolved, Sudoku sudoku, Termination termination, SolverStatistics statistics,
+                           String winner, Map<String, SolverOutput> strategyOutputs) {
+        super(isSolved, sudoku, termination, statistics);
+        this.winner = winner;
+        this.strategyOutputs = Collections.unmodifiableMap(strategyOutputs);
+    }
+
+    /**
+     * Name of the strategy whose solution was returned, null if no
+     * strategy solved the Sudoku
+     *
+     * @return Name of the winning strategy
+     */
+    public String getWinner() {
+        return winner;
+    }
+
+    /**
+     * Output of every strategy by name, in the order the strategies were
+     * given. Strategies that lost the race usually report CANCELLED.
+     *
+     * @return Outputs of the strategies
+     */
+    public Map<String, SolverOutput> getStrategyOutputs() {
+        return strategyOutputs;
+    }
+}
@@ -0,0 +1,287 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Races several solver configurations on the same puzzle, one thread per
+ * strategy. The first solution that passes an independent check is
+ * returned and every other strategy is told to stop through its
+ * cancellation; a strategy that proves the puzzle has no solution stops
+ * the race as well. A strategy that throws proves nothing: its output is
+ * FAILED and carries the exception, and the race goes on without it. The
+ * output of every strategy is kept so the winner can be compared with the
+ * rest.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class PortfolioSolver implements AutoCloseable {
+    private final List<Strategy> strategies;
+    private final ExecutorService workers;
+
+    /**
+     * A named way of solving a puzzle. The solver is given its own copy of
+     * the puzzle and a cancellation it must check regularly.
+     */
+    public static final class Strategy {
+        private final String name;
+        private final BiFunction<int[][], BooleanSupplier, SolverOutput> solver;
+
+        public Strategy(String name, BiFunction<int[][], BooleanSupplier, SolverOutput> solver) {
+            this.name = name;
+            this.solver = solver;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Run the strategy on a puzzle
+         *
+         * @param board Copy of the puzzle for the strategy to work on
+         * @param cancellation Condition to stop the strategy
+         * @return Output of the strategy
+         */
+        SolverOutput solve(int[][] board, BooleanSupplier cancellation) {
+            return solver.apply(board, cancellation);
+        }
+
+        /**
+         * Strategy running the (DFS) sudoku solving algorithm
+         *
+         * @param name Name of the strategy
+         * @param options Settings for the search
+         * @return New strategy
+         */
+        public static Strategy depthFirst(String name, SolverOptions options) {
+            return new Strategy(name, (board, cancellation) -> SudokuSolver.SolveSudoku(board,
+                    new SolverOptions(options).setCancellation(both(options.getCancellation(), cancellation))));
+        }
+
+        /**
+         * Strategy running the dancing links sudoku solving algorithm
+         *
+         * @return New strategy
+         */
+        public static Strategy dancingLinks() {
+            return new Strategy("dancing-links", DancingLinksSolver::SolveSudoku);
+        }
+
+        /**
+         * Strategy running the SAT sudoku solving algorithm
+         *
+         * @return New strategy
+         */
+        public static Strategy sat() {
+            return new Strategy("sat", (board, cancellation) -> SatSolver.SolveSudoku(board,
+                    new SolverOptions().setCancellation(cancellation)));
+        }
+
+        /**
+         * Strategy running the probabilistic sudoku solving algorithm
+         *
+         * @param name Name of the strategy
+         * @param options Settings for the annealing
+         * @return New strategy
+         */
+        public static Strategy annealing(String name, AnnealingOptions options) {
+            return new Strategy(name, (board, cancellation) -> ProbabalisticSudokuSolver.SolveSudoku(board,
+                    new AnnealingOptions(options).setCancellation(both(options.getCancellation(), cancellation))));
+        }
+
+        private static BooleanSupplier both(BooleanSupplier first, BooleanSupplier second) {
+            if(first == null) return second;
+            return () -> first.getAsBoolean() || second.getAsBoolean();
+        }
+    }
+
+    /**
+     * The strategies raced by default: in place DFS with MRV, in place DFS
+     * with random tie-breaks and values, dancing links, SAT, and
+     * box-preserving annealing
+     *
+     * @return Default strategies
+     */
+    public static List<Strategy> defaultStrategies() {
+        return Collections.unmodifiableList(Arrays.asList(
+                Strategy.depthFirst("dfs-mrv", new SolverOptions()
+                        .setSearchMode(SolverOptions.SearchMode.IN_PLACE)
+                        .setVariableOrdering(SolverOptions.VariableOrdering.MRV)),
+                Strategy.depthFirst("dfs-random", new SolverOptions()
+                        .setSearchMode(SolverOptions.SearchMode.IN_PLACE)
+                        .setVariableOrdering(SolverOptions.VariableOrdering.MRV_RANDOM)
+                        .setValueOrdering(SolverOptions.ValueOrdering.RANDOM)),
+                Strategy.dancingLinks(),
+                Strategy.sat(),
+                Strategy.annealing("annealing", AnnealingOptions.boxPreserving())));
+    }
+
+    /**
+     * Constructor for a portfolio of the default strategies
+     */
+    public PortfolioSolver() {
+        this(defaultStrategies());
+    }
+
+    /**
+     * Constructor for a portfolio of the given strategies, with one worker
+     * thread per strategy
+     *
+     * @param strategies Strategies to race, with distinct names
+     */
+    public PortfolioSolver(List<Strategy> strategies) {
+        if(strategies.isEmpty()) {
+            throw new IllegalArgumentException("A portfolio needs at least one strategy");
+        }
+        this.strategies = new ArrayList<>(strategies);
+        this.workers = Executors.newFixedThreadPool(strategies.size(), task -> {
+            Thread thread = new Thread(task, "portfolio-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Race every strategy on a puzzle. The input array is not modified.
+     *
+     * @param sudoku array representing sudoku
+     * @return Output of the winning strategy and of every other strategy
+     */
+    public PortfolioOutput solve(int[][] sudoku) {
+        return solve(sudoku, null);
+    }
+
+    /**
+     * Race every strategy on a puzzle until one solves it, one proves it
+     * has no solution, every strategy gives up or the cancellation returns
+     * true. The input array is not modified.
+     *
+     * @param sudoku array representing sudoku
+     * @param cancellation Condition to stop the race, or null to never stop
+     * @return Output of the winning strategy and of every other strategy
+     */
+    public PortfolioOutput solve(int[][] sudoku, BooleanSupplier cancellation) {
+        AtomicBoolean finished = new AtomicBoolean();
+        BooleanSupplier stop = cancellation == null ? finished::get
+                : () -> finished.get() || cancellation.getAsBoolean();
+
+        CompletionService<Integer> race = new ExecutorCompletionService<>(workers);
+        SolverOutput[] outputs = new SolverOutput[strategies.size()];
+        for (int k = 0; k < strategies.size(); k++) {
+            int index = k;
+            Strategy strategy = strategies.get(k);
+            race.submit(() -> {
+                try {
+                    outputs[index] = strategy.solve(ProbabalisticSudokuSolver.copy(sudoku), stop);
+                } catch (RuntimeException e) {
+                    outputs[index] = new SolverOutput(e);
+                }
+                return index;
+            });
+        }
+
+        int winner = -1;
+        boolean unsolvable = false;
+        try {
+            // Wait for every strategy so that none is still running on the puzzle afterwards
+            for (int finishedCount = 0; finishedCount < strategies.size(); finishedCount++) {
+                int index = race.take().get();
+                SolverOutput output = outputs[index];
+                if(winner < 0 && output.isSolved() && isSolution(sudoku, output.getSudoku().getBoard())) {
+                    winner = index;
+                    finished.set(true);
+                } else if(output.getTermination() == SolverOutput.Termination.UNSOLVABLE) {
+                    unsolvable = true;
+                    finished.set(true);
+                }
+            }
+        } catch (InterruptedException e) {
+            finished.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while racing strategies", e);
+        } catch (ExecutionException e) {
+            finished.set(true);
+            throw new IllegalStateException("Strategy failed", e.getCause());
+        }
+
+        Map<String, SolverOutput> byName = new LinkedHashMap<>();
+        for (int k = 0; k < strategies.size(); k++) {
+            byName.put(strategies.get(k).getName(), outputs[k]);
+        }
+        if(winner >= 0) {
+            SolverOutput output = outputs[winner];
+            return new PortfolioOutput(true, output.getSudoku(), SolverOutput.Termination.SOLVED,
+                    output.getStatistics(), strategies.get(winner).getName(), byName);
+        }
+        SolverOutput.Termination termination = unsolvable ? SolverOutput.Termination.UNSOLVABLE
+                : cancellation != null && cancellation.getAsBoolean() ? SolverOutput.Termination.CANCELLED
+                : gaveUp(outputs);
+        return new PortfolioOutput(false, null, termination, new SolverStatistics(), null, byName);
+    }
+
+    /**
+     * Reason a race ended with no solution and no proof: the first of
+     * time budget, iteration budget, stalling and cancellation that any
+     * strategy reported, or FAILED if every strategy threw
+     */
+    private static SolverOutput.Termination gaveUp(SolverOutput[] outputs) {
+        SolverOutput.Termination[] precedence = {SolverOutput.Termination.TIME_BUDGET,
+                SolverOutput.Termination.ITERATION_BUDGET, SolverOutput.Termination.STALLED,
+                SolverOutput.Termination.CANCELLED};
+        for (SolverOutput.Termination termination : precedence) {
+            for (SolverOutput output : outputs) {
+                if(output.getTermination() == termination) return termination;
+            }
+        }
+        return SolverOutput.Termination.FAILED;
+    }
+
+    /**
+     * Check a solution directly against the rules and the clues, without
+     * trusting the solver that produced it
+     */
+    private static boolean isSolution(int[][] puzzle, int[][] board) {
+        int size = puzzle.length;
+        if(board.length != size) return false;
+        SudokuGeometry geometry = SudokuGeometry.forSize(size);
+        boolean[] rows = new boolean[size * (size + 1)];
+        boolean[] columns = new boolean[size * (size + 1)];
+        boolean[] boxes = new boolean[size * (size + 1)];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int value = board[i][j];
+                if(value < 1 || value > size) return false;
+                if(puzzle[i][j] != 0 && puzzle[i][j] != value) return false;
+                int box = geometry.boxOf(i, j);
+                if(rows[i * (size + 1) + value] || columns[j * (size + 1) + value]
+                        || boxes[box * (size + 1) + value]) return false;
+                rows[i * (size + 1) + value] = true;
+                columns[j * (size + 1) + value] = true;
+                boxes[box * (size + 1) + value] = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
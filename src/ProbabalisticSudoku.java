@@ -1,6 +1,7 @@
 package src;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -14,9 +15,30 @@ import java.util.Random;
  */
 public class ProbabalisticSudoku extends Sudoku {
     private int entropy;
-    private boolean[][] fixed;
+    private boolean[] fixed;
+    private int[] rowCount;
+    private int[] columnCount;
+    private int[] boxCount;
+    private int[] rowSegmentCount;
+    private int[] columnSegmentCount;
     Random rand = new Random();
 
+    /**
+     * How the empty squares are filled before annealing starts
+     */
+    public enum FillStrategy {
+        /**
+         * Fill greedily where a square still has a possible value, then spread
+         * the remaining values of the whole board at random
+         */
+        GLOBAL,
+        /**
+         * Fill every box with a random permutation of the values it is
+         * missing, so that no box has a repeated value
+         */
+        BOX_PERMUTATION
+    }
+
     /**
      * Constructor for making a board with known elements
      * and making all unknown elements empty
@@ -26,12 +48,7 @@ public class ProbabalisticSudoku extends Sudoku {
     public ProbabalisticSudoku(List<SudokuEntry> fixedEntries) {
         super(fixedEntries);
 
-        fixed = new boolean[size][size];
-        for(int i = 0; i < size; i++) {
-            for(int j = 0; j < size; j++) {
-                fixed[i][j] = board[i][j] != 0;
-            }
-        }
+        markFixed();
 
         fillBoard();
         calculateBoardEntropy();
@@ -46,77 +63,182 @@ public class ProbabalisticSudoku extends Sudoku {
     public ProbabalisticSudoku(int[][] board) {
         super(board);
 
-        fixed = new boolean[size][size];
-        for(int i = 0; i < size; i++) {
-            for(int j = 0; j < size; j++) {
-                fixed[i][j] = board[i][j] != 0;
-            }
-        }
+        markFixed();
         fillBoard();
         calculateBoardEntropy();
     }
 
     /**
-     * Constructor for making a new empty board
+     * Constructor for making a board with known elements
+     * and making all unknown elements empty
+     *
+     * @param geometry shape of the board
+     * @param fixedEntries list of the known elements
+     */
+    public ProbabalisticSudoku(SudokuGeometry geometry, List<SudokuEntry> fixedEntries) {
+        super(geometry, fixedEntries);
+
+        markFixed();
+
+        fillBoard();
+        calculateBoardEntropy();
+    }
+
+    /**
+     * Constructor for making a board from a known array of integers,
+     * filled with the given strategy and random seed
+     *
+     * @param board array of integers to be converted to a Sudoku board
+     * @param fillStrategy how to fill the empty squares
+     * @param seed seed of the random fill and of later random choices
+     */
+    public ProbabalisticSudoku(int[][] board, FillStrategy fillStrategy, long seed) {
+        super(board);
+        rand = new Random(seed);
+
+        markFixed();
+        fill(fillStrategy);
+        calculateBoardEntropy();
+    }
+
+    /**
+     * Constructor for making a board with known elements, filled with the
+     * given strategy and random seed
+     *
+     * @param geometry shape of the board
+     * @param fixedEntries list of the known elements
+     * @param fillStrategy how to fill the empty squares
+     * @param seed seed of the random fill and of later random choices
+     */
+    public ProbabalisticSudoku(SudokuGeometry geometry, List<SudokuEntry> fixedEntries,
+                               FillStrategy fillStrategy, long seed) {
+        super(geometry, fixedEntries);
+        rand = new Random(seed);
+
+        markFixed();
+        fill(fillStrategy);
+        calculateBoardEntropy();
+    }
+
+    /**
+     * Constructor for a copy of another board in its current state. The
+     * squares, fixed mask, entropy and value counts are copied directly;
+     * possibility spaces are not copied and nothing is filled again.
+     *
+     * @param other board to copy
+     */
+    protected ProbabalisticSudoku(ProbabalisticSudoku other) {
+        super(other, false);
+        entropy = other.entropy;
+        fixed = other.fixed.clone();
+        rowCount = other.rowCount.clone();
+        columnCount = other.columnCount.clone();
+        boxCount = other.boxCount.clone();
+        rowSegmentCount = other.rowSegmentCount.clone();
+        columnSegmentCount = other.columnSegmentCount.clone();
+        rand = new Random(other.rand.nextLong());
+    }
+
+    /**
+     * Constructor for a board with the fixed squares of another board and
+     * every other square filled again from scratch. The fixed squares are
+     * already closed under propagation, so no possibility spaces are built
+     * unless the fill strategy needs them.
+     *
+     * @param other board whose fixed squares are kept
+     * @param fillStrategy how to fill the empty squares
+     * @param seed seed of the random fill and of later random choices
+     */
+    private ProbabalisticSudoku(ProbabalisticSudoku other, FillStrategy fillStrategy, long seed) {
+        super(other, false);
+        rand = new Random(seed);
+        fixed = other.fixed;
+        for (int cell = 0; cell < fixed.length; cell++) {
+            if(!fixed[cell]) setValue(cell, 0);
+        }
+        fill(fillStrategy);
+        calculateBoardEntropy();
+    }
+
+    /**
+     * Constructor for making a new empty board of the default size
      *
      */
     public ProbabalisticSudoku() {
         super();
 
-        fixed = new boolean[size][size];
-        for(int i = 0; i < size; i++) {
-            for(int j = 0; j < size; j++) {
-                fixed[i][j] = board[i][j] != 0;
-            }
-        }
+        markFixed();
 
         fillBoard();
         calculateBoardEntropy();
     }
 
+    /**
+     * Mark every square that is filled at construction as fixed
+     */
+    private void markFixed() {
+        fixed = new boolean[geometry.getCellCount()];
+        for(int cell = 0; cell < fixed.length; cell++) {
+            fixed[cell] = getValue(cell) != 0;
+        }
+    }
+
     /**
      * Calculated the total number of violation on the board
-     * (ie. the entropy) and sets the entropy variable
+     * (ie. the entropy) and sets the entropy variable. A violation is a
+     * pair of squares holding the same value in the same row, the same
+     * column, or the same box without sharing a row or column, counted
+     * once from each square. The per-unit value counts that swapSquares
+     * updates are rebuilt here as well.
      */
     private void calculateBoardEntropy(){
-        entropy = 0;
+        int size = geometry.getSize();
+        int boxWidth = geometry.getBoxWidth();
+        int stride = size + 1;
+        rowCount = new int[size * stride];
+        columnCount = new int[size * stride];
+        boxCount = new int[size * stride];
+        rowSegmentCount = new int[size * boxWidth * stride];
+        columnSegmentCount = new int[size * boxWidth * stride];
+
         for(int i = 0; i < size; i++) {
             for(int j = 0; j < size; j++) {
-                entropy += calculateEntropy(i,j);
+                int value = getValue(i, j);
+                rowCount[i * stride + value]++;
+                columnCount[j * stride + value]++;
+                boxCount[geometry.boxOf(i, j) * stride + value]++;
+                rowSegmentCount[rowSegment(i, j) * stride + value]++;
+                columnSegmentCount[columnSegment(i, j) * stride + value]++;
             }
         }
+
+        entropy = pairs(rowCount) + pairs(columnCount) + pairs(boxCount)
+                - pairs(rowSegmentCount) - pairs(columnSegmentCount);
     }
 
     /**
-     * Calculate the number of violation caused by any given square
-     *
-     * @param xPosition the x position of the square to check
-     * @param yPosition the y position of the square to check
-     * @return the number of violations
+     * Ordered pairs of equal values counted by a table
      */
-    private int calculateEntropy(int xPosition, int yPosition) {
-        int sumEntropy = 0;
-        for (int i = 0; i < size; i++) {
-            if(board[xPosition][i] == board[xPosition][yPosition] && i != yPosition) {
-                sumEntropy++;
-            }
-            if(board[i][yPosition] == board[xPosition][yPosition] && i != xPosition) {
-                sumEntropy++;
-            }
+    private static int pairs(int[] counts) {
+        int sum = 0;
+        for (int count : counts) {
+            sum += count * (count - 1);
         }
+        return sum;
+    }
 
-        int p = (int)(((int)(xPosition/Math.sqrt(size))) * Math.sqrt(size));
-        int q = (int)(((int)(yPosition/Math.sqrt(size))) * Math.sqrt(size));
-
+    /**
+     * Index of the part of a row that lies inside one box
+     */
+    private int rowSegment(int xPosition, int yPosition) {
+        return xPosition * geometry.getBoxWidth() + yPosition / geometry.getBoxWidth();
+    }
 
-        for (int i = p; i < p + Math.sqrt(size); i++) {
-            for (int j = q; j < q + Math.sqrt(size); j++){
-                if(board[i][j] == board[xPosition][yPosition] && i != xPosition && j != yPosition) {
-                    sumEntropy++;
-                }
-            }
-        }
-        return sumEntropy;
+    /**
+     * Index of the part of a column that lies inside one box
+     */
+    private int columnSegment(int xPosition, int yPosition) {
+        return yPosition * geometry.getBoxWidth() + xPosition / geometry.getBoxWidth();
     }
 
     /**
@@ -129,13 +251,63 @@ public class ProbabalisticSudoku extends Sudoku {
 
     @Override
     public ProbabalisticSudoku cloneSudoku() {
-        int[][] boardClone = new int[size][size];
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                boardClone[i][j] = board[i][j];
+        return new ProbabalisticSudoku(this);
+    }
+
+    /**
+     * New board with the same fixed squares as this one and the other
+     * squares filled again with the given strategy, as for a restart
+     *
+     * @param fillStrategy how to fill the empty squares
+     * @param seed seed of the random fill and of later random choices
+     * @return Refilled board
+     */
+    public ProbabalisticSudoku refill(FillStrategy fillStrategy, long seed) {
+        return new ProbabalisticSudoku(this, fillStrategy, seed);
+    }
+
+    /**
+     * Fill the empty squares with the given strategy
+     *
+     * @param fillStrategy how to fill the empty squares
+     */
+    private void fill(FillStrategy fillStrategy) {
+        if(fillStrategy == FillStrategy.BOX_PERMUTATION) {
+            fillBoxes();
+        } else {
+            fillBoard();
+        }
+    }
+
+    /**
+     * Fill every box with a random permutation of the values missing
+     * from it. Only the squares that are not fixed are filled.
+     */
+    private void fillBoxes() {
+        int size = geometry.getSize();
+        int[] missing = new int[size];
+        boolean[] present = new boolean[size + 1];
+        for (int box = 0; box < size; box++) {
+            Arrays.fill(present, false);
+            for (int cell : geometry.boxCells(box)) {
+                present[getValue(cell)] = true;
+            }
+            int count = 0;
+            for (int value = 1; value <= size; value++) {
+                if(!present[value]) missing[count++] = value;
+            }
+            for (int k = count - 1; k > 0; k--) {
+                int swap = rand.nextInt(k + 1);
+                int tmp = missing[k];
+                missing[k] = missing[swap];
+                missing[swap] = tmp;
+            }
+            int next = 0;
+            for (int cell : geometry.boxCells(box)) {
+                if(getValue(cell) == 0) setValue(cell, missing[next++]);
             }
         }
-        return new ProbabalisticSudoku(boardClone);
+        discardCandidates();
     }
 
     /**
@@ -143,6 +315,8 @@ public class ProbabalisticSudoku extends Sudoku {
      * of each number in the board
      */
     private void fillBoard() {
+        ensureCandidates();
+        int size = geometry.getSize();
         List<Integer> availableValues = new ArrayList<>();
         for (int i = 1; i <= size; i++) {
             for (int j = 0; j < size; j++) {
@@ -152,17 +326,17 @@ public class ProbabalisticSudoku extends Sudoku {
 
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
-                if(board[i][j] != 0) {
-                    availableValues.remove(availableValues.indexOf(board[i][j]));
+                if(getValue(i, j) != 0) {
+                    availableValues.remove(availableValues.indexOf(getValue(i, j)));
                 }
             }
         }
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
-                if(board[i][j] == 0) {
+                if(getValue(i, j) == 0) {
                     if(possibilityList[i][j].size() > 0) {
                         int value = rand.nextInt(possibilityList[i][j].size());
-                        board[i][j] = possibilityList[i][j].get(value);
+                        setValue(geometry.cellIndex(i, j), possibilityList[i][j].get(value));
                         availableValues.remove(availableValues.indexOf(possibilityList[i][j].get(value)));
                         updatePossibilitySpace(i, j);
                         updatePossibilitySpaceAround(i, j);
@@ -173,17 +347,60 @@ public class ProbabalisticSudoku extends Sudoku {
 
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
-                if(board[i][j] == 0) {
+                if(getValue(i, j) == 0) {
                     int value = rand.nextInt(availableValues.size());
-                    board[i][j] = availableValues.get(value);
+                    setValue(geometry.cellIndex(i, j), availableValues.get(value));
                     availableValues.remove(availableValues.indexOf(availableValues.get(value)));
                 }
             }
         }
+        // The possibility spaces only served the fill and no longer match a full board
+        discardCandidates();
+    }
+
+    /**
+     * Change in entropy that swapping the contents of square 1 and square 2
+     * would cause, without changing the board
+     *
+     * @param x1Position x value of square 1
+     * @param y1Position y value of square 1
+     * @param x2Position x value of square 2
+     * @param y2Position y value of square 2
+     * @return Entropy after the swap minus entropy before it
+     */
+    public int swapDelta(int x1Position, int y1Position, int x2Position, int y2Position) {
+        int value1 = getValue(x1Position, y1Position);
+        int value2 = getValue(x2Position, y2Position);
+        if(value1 == value2) return 0;
+
+        int delta = unitDelta(rowCount, x1Position, x2Position, value1, value2);
+        delta += unitDelta(columnCount, y1Position, y2Position, value1, value2);
+        delta += unitDelta(boxCount, geometry.boxOf(x1Position, y1Position),
+                geometry.boxOf(x2Position, y2Position), value1, value2);
+        delta -= unitDelta(rowSegmentCount, rowSegment(x1Position, y1Position),
+                rowSegment(x2Position, y2Position), value1, value2);
+        delta -= unitDelta(columnSegmentCount, columnSegment(x1Position, y1Position),
+                columnSegment(x2Position, y2Position), value1, value2);
+        return delta;
     }
 
     /**
-     * Swap the contents of square 1 and square 2 and recalculate entropy
+     * Change in the pairs counted by one table when value1 in unit1 and
+     * value2 in unit2 trade places. Moving a value within a unit changes nothing,
+     * otherwise unit1 loses value1 and gains value2 and unit2 the reverse.
+     */
+    private int unitDelta(int[] counts, int unit1, int unit2, int value1, int value2) {
+        if(unit1 == unit2) return 0;
+        int stride = geometry.getSize() + 1;
+        int base1 = unit1 * stride;
+        int base2 = unit2 * stride;
+        return 2 * (counts[base1 + value2] - counts[base1 + value1] + 1)
+                + 2 * (counts[base2 + value1] - counts[base2 + value2] + 1);
+    }
+
+    /**
+     * Swap the contents of square 1 and square 2 and update the entropy
+     * in constant time from the per-unit value counts
      *
      * @param x1Position x value of square 1
      * @param y1Position y value of square 1
@@ -191,17 +408,38 @@ public class ProbabalisticSudoku extends Sudoku {
      * @param y2Position y value of square 2
      */
     public void swapSquares(int x1Position, int y1Position, int x2Position, int y2Position) {
-        //Manage Updating Entropy Efficiently
-        int entropyChange = 2 * calculateEntropy(x1Position, y1Position);
-        entropyChange += 2 * calculateEntropy(x2Position, y2Position);
-        int tmp = board[x1Position][y1Position];
-        board[x1Position][y1Position] = board[x2Position][y2Position];
-        board[x2Position][y2Position] = tmp;
+        int value1 = getValue(x1Position, y1Position);
+        int value2 = getValue(x2Position, y2Position);
+        if(value1 == value2) return;
 
-        entropyChange -= 2 * calculateEntropy(x1Position, y1Position);
-        entropyChange -= 2 * calculateEntropy(x2Position, y2Position);
+        entropy += swapDelta(x1Position, y1Position, x2Position, y2Position);
+        moveCount(x1Position, y1Position, value1, value2);
+        moveCount(x2Position, y2Position, value2, value1);
+        setValue(geometry.cellIndex(x1Position, y1Position), value2);
+        setValue(geometry.cellIndex(x2Position, y2Position), value1);
+        if(hasCandidates()) discardCandidates();
+    }
 
-        entropy -= entropyChange;
+    /**
+     * Replace one value of a square by another in every count table
+     */
+    private void moveCount(int xPosition, int yPosition, int oldValue, int newValue) {
+        int stride = geometry.getSize() + 1;
+        int row = xPosition * stride;
+        int column = yPosition * stride;
+        int box = geometry.boxOf(xPosition, yPosition) * stride;
+        int rowSegment = rowSegment(xPosition, yPosition) * stride;
+        int columnSegment = columnSegment(xPosition, yPosition) * stride;
+        rowCount[row + oldValue]--;
+        rowCount[row + newValue]++;
+        columnCount[column + oldValue]--;
+        columnCount[column + newValue]++;
+        boxCount[box + oldValue]--;
+        boxCount[box + newValue]++;
+        rowSegmentCount[rowSegment + oldValue]--;
+        rowSegmentCount[rowSegment + newValue]++;
+        columnSegmentCount[columnSegment + oldValue]--;
+        columnSegmentCount[columnSegment + newValue]++;
     }
 
     /**
@@ -211,7 +449,7 @@ public class ProbabalisticSudoku extends Sudoku {
      * @return
      */
     public boolean isFixed(int xPosition, int yPosition) {
-        return fixed[xPosition][yPosition];
+        return fixed[geometry.cellIndex(xPosition, yPosition)];
     }
 
     /** New code */
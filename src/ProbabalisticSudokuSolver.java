@@ -1,8 +1,8 @@
 package src;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.function.BooleanSupplier;
 
 public abstract class ProbabalisticSudokuSolver {
 
@@ -11,12 +11,13 @@ public abstract class ProbabalisticSudokuSolver {
      * solving algorithm
      *
      * @param fixedEntries List of fixed entried
-     * @return Solved Sudoku
+     * @return Solved Sudoku, or null if the solver stopped without
+     *         solving it
      */
     public static Sudoku SudokuSolver(List<SudokuEntry> fixedEntries) {
         ProbabalisticSudoku startingSudoku = new ProbabalisticSudoku(fixedEntries);
         SolverOutput solverOutput =  SolveSudoku(startingSudoku);
-        return solverOutput.getSudoku();
+        return solverOutput.isSolved() ? solverOutput.getSudoku() : null;
     }
 
     /**
@@ -24,12 +25,41 @@ public abstract class ProbabalisticSudokuSolver {
      * solving algorithm
      *
      * @param sudoku array representing sudoku
-     * @return Solved Sudoku
+     * @return Solved Sudoku, or null if the solver stopped without
+     *         solving it
      */
     public static Sudoku SudokuSolver(int[][] sudoku) {
         ProbabalisticSudoku startingSudoku = new ProbabalisticSudoku(sudoku);
         SolverOutput solverOutput =  SolveSudoku(startingSudoku);
-        return solverOutput.getSudoku();
+        return solverOutput.isSolved() ? solverOutput.getSudoku() : null;
+    }
+
+    /**
+     * Solve a Sudoku with the given annealing options
+     *
+     * @param fixedEntries List of fixed entried
+     * @param options Settings for the solve
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(List<SudokuEntry> fixedEntries, AnnealingOptions options) {
+        long start = System.nanoTime();
+        ProbabalisticSudoku startingSudoku = new ProbabalisticSudoku(SudokuGeometry.forSize(Sudoku.size),
+                fixedEntries, options.getFillStrategy(), options.getSeed());
+        return SolveSudoku(startingSudoku, options, System.nanoTime() - start);
+    }
+
+    /**
+     * Solve a Sudoku with the given annealing options
+     *
+     * @param sudoku array representing sudoku
+     * @param options Settings for the solve
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(int[][] sudoku, AnnealingOptions options) {
+        long start = System.nanoTime();
+        ProbabalisticSudoku startingSudoku = new ProbabalisticSudoku(sudoku,
+                options.getFillStrategy(), options.getSeed());
+        return SolveSudoku(startingSudoku, options, System.nanoTime() - start);
     }
 
     /**
@@ -39,53 +69,120 @@ public abstract class ProbabalisticSudokuSolver {
      * @return Output from the Solver
      */
     private static SolverOutput SolveSudoku(ProbabalisticSudoku sudoku) {
+        return SolveSudoku(sudoku, new AnnealingOptions());
+    }
+
+    /**
+     * Method that implements the algorithm. Moves are proposed until the
+     * entropy reaches zero or a budget of the options runs out; a move that
+     * raises the entropy by d is kept with probability exp(-d / T) for the
+     * temperature T of the cooling schedule. When the lowest entropy of a
+     * run has not improved for a while the board is filled again from
+     * scratch.
+     *
+     * @param sudoku Input Sudoku to solve
+     * @param options Settings for the solve
+     * @return Output from the Solver
+     */
+    private static SolverOutput SolveSudoku(ProbabalisticSudoku sudoku, AnnealingOptions options) {
+        return SolveSudoku(sudoku, options, 0);
+    }
+
+    private static SolverOutput SolveSudoku(ProbabalisticSudoku sudoku, AnnealingOptions options, long setupNanos) {
+        long start = System.nanoTime();
+        long deadline = options.getTimeLimit() == null ? 0 : start + options.getTimeLimit().toNanos();
+        Random rand = new Random(options.getSeed() + 1);
+        MoveGenerator moves = new MoveGenerator(sudoku, options.getMoveStrategy(), rand);
+        CoolingSchedule schedule = options.getCoolingSchedule().copy();
+        SolverListener listener = options.getListener();
+        BooleanSupplier cancellation = options.getCancellation();
+        SolverStatistics statistics = new SolverStatistics();
+        statistics.setupNanos = setupNanos;
+        ProbabalisticSudoku initial = sudoku;
+
+        schedule.reset(sudoku.getEntropy());
+        statistics.recordEntropy(0, sudoku.getEntropy());
         int minEntropy = sudoku.getEntropy();
-        int initial = sudoku.getEntropy();
-
-        Random rand = new Random();
-        int x1Rand;
-        int y1Rand;
-        int x2Rand;
-        int y2Rand;
-
-        int currentEntopy;
-        int entropyChange;
-        int stringOfFail = 0;
-
-        while(sudoku.getEntropy() > 0) {
-            do {
-                x1Rand = rand.nextInt(Sudoku.size);
-                y1Rand = rand.nextInt(Sudoku.size);
-            } while(sudoku.isFixed(x1Rand, y1Rand));
-
-            do {
-                x2Rand = rand.nextInt(Sudoku.size);
-                y2Rand = rand.nextInt(Sudoku.size);
-            } while(sudoku.isFixed(x2Rand, y2Rand));
-
-            currentEntopy = sudoku.getEntropy();
-            sudoku.swapSquares(x1Rand,y1Rand,x2Rand,y2Rand);
-            entropyChange = sudoku.getEntropy() - currentEntopy;
-
-
-            if(entropyChange > 0) {
-                if(rand.nextDouble() > Math.exp(-2 * entropyChange/minEntropy)) {
-                    sudoku.swapSquares(x1Rand,y1Rand,x2Rand,y2Rand);
-                    //System.out.println(false);
-                    stringOfFail++;
-                } else stringOfFail = 0;
-            } else stringOfFail = 0;
-
-            System.out.println(stringOfFail);
-            //System.out.println(sudoku.getEntropy());
-            //System.out.println(minEntropy + "---" + initial);
+        long stringOfFail = 0;
+        int restarts = 0;
+        long iterations = 0;
+        long accepts = 0;
+        SolverOutput.Termination termination = SolverOutput.Termination.SOLVED;
+
+        if(sudoku.getEntropy() > 0 && !moves.hasMoves()) {
+            termination = SolverOutput.Termination.UNSOLVABLE;
+        }
+
+        while(sudoku.getEntropy() > 0 && termination == SolverOutput.Termination.SOLVED) {
+            if(iterations >= options.getMaxIterations()) {
+                termination = SolverOutput.Termination.ITERATION_BUDGET;
+                break;
+            }
+            if((iterations & 1023) == 0) {
+                if(deadline != 0 && System.nanoTime() - deadline > 0) {
+                    termination = SolverOutput.Termination.TIME_BUDGET;
+                    break;
+                }
+                if(cancellation != null && cancellation.getAsBoolean()) {
+                    termination = SolverOutput.Termination.CANCELLED;
+                    break;
+                }
+            }
+            iterations++;
+
+            moves.next();
+            int entropyChange = sudoku.swapDelta(moves.x1, moves.y1, moves.x2, moves.y2);
+            boolean accepted = entropyChange <= 0
+                    || rand.nextDouble() < Math.exp(-entropyChange / schedule.getTemperature());
+            if(accepted) {
+                sudoku.swapSquares(moves.x1, moves.y1, moves.x2, moves.y2);
+                accepts++;
+            }
+            schedule.update(sudoku.getEntropy(), entropyChange > 0, accepted);
+            if(listener != null) listener.onMove(iterations, sudoku.getEntropy(), accepted);
 
             if(sudoku.getEntropy() < minEntropy) {
                 minEntropy = sudoku.getEntropy();
+                stringOfFail = 0;
+                statistics.recordEntropy(iterations, minEntropy);
+            } else if(options.getRestartAfter() > 0 && ++stringOfFail >= options.getRestartAfter()) {
+                if(restarts == options.getMaxRestarts()) {
+                    termination = SolverOutput.Termination.STALLED;
+                    break;
+                }
+                restarts++;
+                sudoku = initial.refill(options.getFillStrategy(), rand.nextLong());
+                schedule.reset(sudoku.getEntropy());
+                minEntropy = sudoku.getEntropy();
+                stringOfFail = 0;
+                statistics.recordEntropy(iterations, minEntropy);
+                if(listener != null) listener.onRestart(restarts, minEntropy);
             }
         }
 
-        return new SolverOutput(true, sudoku);
+        statistics.nodes = iterations;
+        statistics.acceptedSwaps = accepts;
+        statistics.rejectedSwaps = iterations - accepts;
+        statistics.restarts = restarts;
+        statistics.searchNanos = System.nanoTime() - start;
+        boolean solved = termination == SolverOutput.Termination.SOLVED;
+        // A board that ran out of budget is handed back as it ended
+        SolverOutput output = new SolverOutput(solved,
+                termination == SolverOutput.Termination.UNSOLVABLE ? null : sudoku, termination, statistics);
+        if(listener != null) listener.onFinish(output);
+        return output;
+    }
+
+    /**
+     * Copy of a board, for keeping an input that the caller may change
+     * later
+     */
+    static int[][] copy(int[][] board) {
+        int[][] copy = new int[board.length][];
+        for (int i = 0; i < board.length; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,153 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Generates puzzles with a unique solution. A complete grid is found by
+ * running the in place search on an empty board with random tie-breaks
+ * and random value order; clues are then removed in a random order, one
+ * orbit of the chosen symmetry at a time, and a removal is undone when
+ * the puzzle no longer has exactly one solution or rates higher than the
+ * options allow. Removal stops at the target clue count, difficulty or
+ * rating of the options, or when no clue can be removed. Ratings come
+ * from the deduction strategies of the options.
+ *
+ * Every puzzle is generated from its own seed, so a batch generated on
+ * several threads is the same as one generated on a single thread.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public abstract class PuzzleGenerator {
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Generate one puzzle
+     *
+     * @param options Settings for the puzzle
+     * @return Generated puzzle
+     */
+    public static GeneratedPuzzle generate(GeneratorOptions options) {
+        int size = options.getSize();
+        long seed = options.getSeed();
+        Random rand = new Random(seed);
+        int[][] grid = generateGrid(size, rand.nextLong());
+        int[][] puzzle = ProbabalisticSudokuSolver.copy(grid);
+
+        List<int[]> orbits = orbits(size, options.getSymmetry());
+        Collections.shuffle(orbits, rand);
+        boolean rated = options.getTargetRating() > 0 || options.getMaxRating() > 0;
+        int clues = size * size;
+        long difficulty = 0;
+        int rating = DeductionReport.SINGLES_RATING;
+        for (int[] orbit : orbits) {
+            if(clues <= options.getTargetClues()) break;
+            if(options.getTargetDifficulty() > 0 && difficulty >= options.getTargetDifficulty()) break;
+            if(options.getTargetRating() > 0 && rating >= options.getTargetRating()) break;
+            if(clues - orbit.length < options.getTargetClues()) continue;
+
+            for (int cell : orbit) {
+                puzzle[cell / size][cell % size] = 0;
+            }
+            long nodes = uniquenessNodes(puzzle, options.getCheckBudget());
+            int newRating = nodes >= 0 && rated ? options.getDeductions().rate(puzzle).getRating() : rating;
+            if(nodes >= 0 && (options.getMaxRating() == 0 || newRating <= options.getMaxRating())) {
+                clues -= orbit.length;
+                difficulty = nodes;
+                rating = newRating;
+            } else {
+                for (int cell : orbit) {
+                    puzzle[cell / size][cell % size] = grid[cell / size][cell % size];
+                }
+            }
+        }
+        if(!rated) rating = options.getDeductions().rate(puzzle).getRating();
+        return new GeneratedPuzzle(puzzle, grid, clues, difficulty, rating, seed);
+    }
+
+    /**
+     * Generate puzzles on the threads of a pool. Puzzle k uses a seed
+     * derived from the seed of the options and k, and the puzzles are
+     * returned in that order.
+     *
+     * @param options Settings for the puzzles
+     * @param count Number of puzzles to generate
+     * @param pool Pool to generate the puzzles on
+     * @return Generated puzzles
+     */
+    public static List<GeneratedPuzzle> generate(GeneratorOptions options, int count, ForkJoinPool pool) {
+        List<ForkJoinTask<GeneratedPuzzle>> tasks = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            GeneratorOptions puzzleOptions = new GeneratorOptions(options).setSeed(options.getSeed() + k * SEED_STRIDE);
+            tasks.add(pool.submit(() -> generate(puzzleOptions)));
+        }
+        List<GeneratedPuzzle> puzzles = new ArrayList<>();
+        for (ForkJoinTask<GeneratedPuzzle> task : tasks) {
+            puzzles.add(task.join());
+        }
+        return puzzles;
+    }
+
+    /**
+     * Generate a random complete grid
+     *
+     * @param size Side length of the board
+     * @param seed Seed for the random choices of the search
+     * @return Array representing the grid
+     */
+    public static int[][] generateGrid(int size, long seed) {
+        SolverOutput output = SudokuSolver.SolveSudoku(new int[size][size], new SolverOptions()
+                .setSearchMode(SolverOptions.SearchMode.IN_PLACE)
+                .setVariableOrdering(SolverOptions.VariableOrdering.MRV_RANDOM)
+                .setValueOrdering(SolverOptions.ValueOrdering.RANDOM)
+                .setSeed(seed));
+        return output.getSudoku().getBoard();
+    }
+
+    /**
+     * Search nodes needed to prove the puzzle has exactly one solution, or
+     * -1 if it has more than one or the proof runs out of budget
+     */
+    private static long uniquenessNodes(int[][] puzzle, long budget) {
+        long[] guesses = new long[1];
+        SolverOptions options = new SolverOptions()
+                .setVariableOrdering(SolverOptions.VariableOrdering.MRV)
+                .setListener(new SolverListener() {
+                    @Override
+                    public void onGuess(int row, int column, int value) {
+                        guesses[0]++;
+                    }
+                })
+                .setCancellation(() -> guesses[0] > budget);
+        SolutionCount count = SudokuSolver.CountSolutions(puzzle, 2, options);
+        return count.isUnique() ? count.getNodeCount() : -1;
+    }
+
+    /**
+     * Cells grouped into the orbits of a symmetry, each cell in exactly
+     * one orbit
+     */
+    private static List<int[]> orbits(int size, GeneratorOptions.Symmetry symmetry) {
+        List<int[]> orbits = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int cell = i * size + j;
+                int partner;
+                switch (symmetry) {
+                    case ROTATIONAL: partner = (size - 1 - i) * size + (size - 1 - j); break;
+                    case MIRROR: partner = i * size + (size - 1 - j); break;
+                    case DIAGONAL: partner = j * size + i; break;
+                    default: partner = cell;
+                }
+                if(partner == cell) orbits.add(new int[] {cell});
+                else if(cell < partner) orbits.add(new int[] {cell, partner});
+            }
+        }
+        return orbits;
+    }
+}
@@ -0,0 +1,333 @@
+package src;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * In place depth first search driven from an explicit stack of frames
+ * instead of recursion, so its depth is not limited by the thread stack
+ * and it can stop after any node. A frame holds the square guessed at one
+ * level, its values in the order they are tried and how many have been
+ * tried. run searches until the board is solved, proved unsolvable, or
+ * a node or time budget for the slice runs out; the next call to run
+ * carries on from where the last one stopped, on any thread.
+ *
+ * A suspended search can be saved with checkpoint and rebuilt with
+ * resume, in this or another process. The checkpoint holds the puzzle,
+ * the settings of the search, its statistics and the frames; the board
+ * itself is rebuilt by replaying the current value of every frame. Random
+ * orderings draw from a generator seeded by the seed and the node count,
+ * so a search that is suspended and resumed makes the same choices as one
+ * that is not.
+ *
+ * The listener of the options hears every guess, contradiction and
+ * backtrack; onFinish is left to the caller, which sees every slice end.
+ * Instances are not thread safe: run one slice at a time.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class ResumableSearch {
+    private static final int CHECKPOINT_MAGIC = 0x53444B43;
+    private static final int CHECKPOINT_VERSION = 1;
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+    private final int[][] puzzle;
+    private final SolverOptions options;
+    private final SolverStatistics statistics = new SolverStatistics();
+    private Sudoku board;
+    private int depth;
+    private int[] frameCells = new int[16];
+    private int[][] frameValues = new int[16][];
+    private int[] frameNext = new int[16];
+    private int[] frameMarks = new int[16];
+    private SolverOutput.Termination result;
+
+    /**
+     * Constructor for a search of a puzzle that has not started yet
+     *
+     * @param sudoku array representing sudoku
+     * @param options Settings for the search; the search mode is ignored
+     */
+    public ResumableSearch(int[][] sudoku, SolverOptions options) {
+        this.puzzle = ProbabalisticSudokuSolver.copy(sudoku);
+        this.options = options;
+        long start = System.nanoTime();
+        board = new Sudoku(puzzle);
+        deduce();
+        if(!board.isSolvable()) {
+            result = SolverOutput.Termination.UNSOLVABLE;
+        } else {
+            board.beginTrail();
+            push();
+        }
+        statistics.setupNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Rebuild a search saved with checkpoint. The orderings and seed come
+     * from the checkpoint; the cancellation, listener and deductions come
+     * from the options and should match those of the saved search.
+     *
+     * @param checkpoint Bytes returned by checkpoint
+     * @param options Settings for the rest of the search
+     * @return Search ready to carry on
+     * @throws IllegalArgumentException If the checkpoint cannot be read
+     */
+    public static ResumableSearch resume(byte[] checkpoint, SolverOptions options) throws IllegalArgumentException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(checkpoint))) {
+            if(in.readInt() != CHECKPOINT_MAGIC || in.readUnsignedByte() != CHECKPOINT_VERSION) {
+                throw new IllegalArgumentException("Not a search checkpoint");
+            }
+            SolverOptions restored = new SolverOptions(options)
+                    .setVariableOrdering(SolverOptions.VariableOrdering.values()[in.readUnsignedByte()])
+                    .setValueOrdering(SolverOptions.ValueOrdering.values()[in.readUnsignedByte()])
+                    .setSeed(in.readLong());
+            int size = in.readUnsignedShort();
+            int[][] sudoku = new int[size][size];
+            for (int[] row : sudoku) {
+                for (int j = 0; j < size; j++) {
+                    row[j] = readValue(in, size);
+                }
+            }
+            long[] counters = new long[5];
+            for (int k = 0; k < counters.length; k++) {
+                counters[k] = in.readLong();
+            }
+
+            ResumableSearch search = new ResumableSearch(sudoku, restored);
+            search.statistics.nodes = counters[0];
+            search.statistics.backtracks = counters[1];
+            search.statistics.propagations = counters[2];
+            search.statistics.contradictions = counters[3];
+            search.statistics.searchNanos = counters[4];
+            int frames = in.readInt();
+            if(search.result != null || frames < 1) {
+                throw new IllegalArgumentException("The checkpoint does not match its puzzle");
+            }
+            search.depth = 0;
+            for (int k = 0; k < frames; k++) {
+                int cell = in.readInt();
+                int[] values = new int[in.readUnsignedShort()];
+                for (int v = 0; v < values.length; v++) {
+                    values[v] = readValue(in, size);
+                }
+                int next = in.readUnsignedShort();
+                search.replay(cell, values, next);
+            }
+            return search;
+        } catch (IOException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Corrupt search checkpoint", e);
+        }
+    }
+
+    /**
+     * Search until the board is solved or proved unsolvable, or until
+     * the budget of this slice runs out
+     *
+     * @param maxNodes Nodes to expand in this slice, 0 for no limit
+     * @param maxMillis Time to search in this slice, 0 for no limit
+     * @return Output of the search; ITERATION_BUDGET or TIME_BUDGET if it
+     *         was suspended and CANCELLED if the options cancelled it, in
+     *         which case run can be called again
+     */
+    public SolverOutput run(long maxNodes, long maxMillis) {
+        long start = System.nanoTime();
+        long deadline = start + maxMillis * 1_000_000;
+        long nodes = 0;
+        SolverOutput.Termination stop = result;
+        while (stop == null) {
+            if(maxNodes > 0 && nodes >= maxNodes) {
+                stop = SolverOutput.Termination.ITERATION_BUDGET;
+            } else if(maxMillis > 0 && System.nanoTime() - deadline >= 0) {
+                stop = SolverOutput.Termination.TIME_BUDGET;
+            } else if(options.getCancellation() != null && options.getCancellation().getAsBoolean()) {
+                stop = SolverOutput.Termination.CANCELLED;
+            } else {
+                if(step()) nodes++;
+                stop = result;
+            }
+        }
+        statistics.searchNanos += System.nanoTime() - start;
+        return result == SolverOutput.Termination.SOLVED
+                ? new SolverOutput(true, board, result, statistics)
+                : new SolverOutput(false, null, stop, statistics);
+    }
+
+    /**
+     * Whether the search has solved the board or proved it unsolvable
+     *
+     * @return Whether there is nothing left to search
+     */
+    public boolean isFinished() {
+        return result != null;
+    }
+
+    /**
+     * Number of frames on the stack, one per guessed square
+     *
+     * @return Depth of the search
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Save the state of a suspended search
+     *
+     * @return Bytes for resume
+     * @throws IllegalStateException If the search has finished
+     */
+    public byte[] checkpoint() throws IllegalStateException {
+        if(result != null) {
+            throw new IllegalStateException("The search has finished");
+        }
+        int size = puzzle.length;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeByte(CHECKPOINT_VERSION);
+            out.writeByte(options.getVariableOrdering().ordinal());
+            out.writeByte(options.getValueOrdering().ordinal());
+            out.writeLong(options.getSeed());
+            out.writeShort(size);
+            for (int[] row : puzzle) {
+                for (int value : row) {
+                    writeValue(out, size, value);
+                }
+            }
+            out.writeLong(statistics.nodes);
+            out.writeLong(statistics.backtracks);
+            out.writeLong(statistics.propagations);
+            out.writeLong(statistics.contradictions);
+            out.writeLong(statistics.searchNanos);
+            out.writeInt(depth);
+            for (int k = 0; k < depth; k++) {
+                out.writeInt(frameCells[k]);
+                out.writeShort(frameValues[k].length);
+                for (int value : frameValues[k]) {
+                    writeValue(out, size, value);
+                }
+                out.writeShort(frameNext[k]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Move the search one node on: undo the value the top frame tried
+     * last, then either pop the frame if it has no values left or guess
+     * its next value and push a frame for the square that follows
+     *
+     * @return Whether a value was guessed
+     */
+    private boolean step() {
+        int top = depth - 1;
+        SudokuGeometry geometry = board.getGeometry();
+        int i = geometry.rowOf(frameCells[top]);
+        int j = geometry.columnOf(frameCells[top]);
+        if(frameNext[top] > 0) {
+            board.undoTo(frameMarks[top]);
+            statistics.backtracks++;
+            if(options.getListener() != null) options.getListener().onBacktrack(i, j, frameValues[top][frameNext[top] - 1]);
+        }
+        if(frameNext[top] == frameValues[top].length) {
+            depth--;
+            if(depth == 0) result = SolverOutput.Termination.UNSOLVABLE;
+            return false;
+        }
+
+        int value = frameValues[top][frameNext[top]++];
+        statistics.nodes++;
+        if(options.getListener() != null) options.getListener().onGuess(i, j, value);
+        long propagated = board.getPropagationCount();
+        place(top, value);
+        statistics.propagations += board.getPropagationCount() - propagated;
+        if(!board.isSolvable()) {
+            statistics.contradictions++;
+            if(options.getListener() != null) options.getListener().onContradiction(i, j, value);
+        } else {
+            push();
+        }
+        return true;
+    }
+
+    /**
+     * Put a frame on the stack for the next square to guess, or finish
+     * if the board is full
+     */
+    private void push() {
+        Random rand = new Random(options.getSeed() + statistics.nodes * SEED_STRIDE);
+        int cell = SudokuSolver.selectSquare(board, options, rand);
+        if(cell < 0) {
+            board.endTrail();
+            result = SolverOutput.Termination.SOLVED;
+            return;
+        }
+        SudokuGeometry geometry = board.getGeometry();
+        int[] values = SudokuSolver.orderValues(board, geometry.rowOf(cell), geometry.columnOf(cell), options, rand);
+        pushFrame(cell, values, 0);
+    }
+
+    private void pushFrame(int cell, int[] values, int next) {
+        if(depth == frameCells.length) {
+            frameCells = Arrays.copyOf(frameCells, 2 * depth);
+            frameValues = Arrays.copyOf(frameValues, 2 * depth);
+            frameNext = Arrays.copyOf(frameNext, 2 * depth);
+            frameMarks = Arrays.copyOf(frameMarks, 2 * depth);
+        }
+        frameCells[depth] = cell;
+        frameValues[depth] = values;
+        frameNext[depth] = next;
+        depth++;
+    }
+
+    /**
+     * Place a value of a frame on the board and let it propagate
+     */
+    private void place(int frame, int value) {
+        SudokuGeometry geometry = board.getGeometry();
+        frameMarks[frame] = board.trailMark();
+        board.addValidEntry(geometry.rowOf(frameCells[frame]), geometry.columnOf(frameCells[frame]), value);
+        deduce();
+    }
+
+    /**
+     * Push a saved frame and place the value it was trying, if any
+     */
+    private void replay(int cell, int[] values, int next) {
+        if(next > values.length || !board.isSolvable()) {
+            throw new IllegalArgumentException("The checkpoint does not match its puzzle");
+        }
+        pushFrame(cell, values, next);
+        if(next > 0) place(depth - 1, values[next - 1]);
+    }
+
+    private void deduce() {
+        DeductionPipeline deductions = options.getDeductions();
+        if(deductions != null && board.isSolvable()) {
+            deductions.deduce(board, statistics.deductions(deductions));
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, int size, int value) throws IOException {
+        if(size <= 255) out.writeByte(value);
+        else out.writeShort(value);
+    }
+
+    private static int readValue(DataInputStream in, int size) throws IOException {
+        return size <= 255 ? in.readUnsignedByte() : in.readUnsignedShort();
+    }
+}
@@ -0,0 +1,101 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sudoku solver that encodes the puzzle in conjunctive normal form and
+ * hands it to the conflict-driven clause-learning engine of CdclSolver.
+ * Learning from conflicts lets it finish hard and large puzzles that
+ * depth first search cannot, at the price of building the formula first.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public abstract class SatSolver {
+
+    /**
+     * Solver Sudoku method for utilizing the SAT sudoku solving algorithm
+     *
+     * @param fixedEntries List of fixed entried
+     * @return Solved Sudoku
+     */
+    public static Sudoku SudokuSolver(List<SudokuEntry> fixedEntries) {
+        return SolveSudoku(fixedEntries, new SolverOptions()).getSudoku();
+    }
+
+    /**
+     * Solver Sudoku method for utilizing the SAT sudoku solving algorithm
+     *
+     * @param sudoku array representing sudoku
+     * @return Solved Sudoku
+     */
+    public static Sudoku SudokuSolver(int[][] sudoku) {
+        return SolveSudoku(sudoku, new SolverOptions()).getSudoku();
+    }
+
+    /**
+     * Solve a Sudoku of the default size given by its fixed entries. Only
+     * the cancellation and listener of the options are used.
+     *
+     * @param fixedEntries List of fixed entried
+     * @param options Settings for the solve
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(List<SudokuEntry> fixedEntries, SolverOptions options) {
+        return SolveSudoku(SudokuGeometry.forSize(Sudoku.size), fixedEntries, options);
+    }
+
+    /**
+     * Solve a Sudoku given as an array. Only the cancellation and listener
+     * of the options are used. The input array is not modified.
+     *
+     * @param sudoku array representing sudoku
+     * @param options Settings for the solve
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(int[][] sudoku, SolverOptions options) {
+        SudokuGeometry geometry = SudokuGeometry.forSize(sudoku.length);
+        List<SudokuEntry> fixedEntries = new ArrayList<>();
+        for (int i = 0; i < sudoku.length; i++) {
+            if(sudoku[i].length != sudoku.length) {
+                throw new IllegalArgumentException("Dimension Mismatch");
+            }
+            for (int j = 0; j < sudoku.length; j++) {
+                if(sudoku[i][j] != 0) fixedEntries.add(new SudokuEntry(i, j, sudoku[i][j]));
+            }
+        }
+        return SolveSudoku(geometry, fixedEntries, options);
+    }
+
+    private static SolverOutput SolveSudoku(SudokuGeometry geometry, List<SudokuEntry> fixedEntries,
+                                            SolverOptions options) {
+        SolverStatistics statistics = new SolverStatistics();
+        long start = System.nanoTime();
+        SudokuCnf formula = new SudokuCnf(geometry, fixedEntries);
+        CdclSolver solver = new CdclSolver(formula.getVariableCount());
+        for (int[] clause : formula.getClauses()) {
+            if(!solver.addClause(clause)) break;
+        }
+        long searchStart = System.nanoTime();
+        statistics.setupNanos = searchStart - start;
+
+        Boolean satisfiable = solver.solve(options.getCancellation());
+        statistics.searchNanos = System.nanoTime() - searchStart;
+        statistics.nodes = solver.getDecisions();
+        statistics.backtracks = solver.getConflicts();
+        statistics.contradictions = solver.getConflicts();
+        statistics.propagations = solver.getPropagations();
+        statistics.restarts = solver.getRestarts();
+
+        SolverOutput output;
+        if(Boolean.TRUE.equals(satisfiable)) {
+            output = new SolverOutput(true, new Sudoku(formula.decode(solver)), SolverOutput.Termination.SOLVED, statistics);
+        } else {
+            output = new SolverOutput(false, null, satisfiable == null
+                    ? SolverOutput.Termination.CANCELLED : SolverOutput.Termination.UNSOLVABLE, statistics);
+        }
+        if(options.getListener() != null) options.getListener().onFinish(output);
+        return output;
+    }
+}
@@ -0,0 +1,79 @@
+package src;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of counting the solutions of a Sudoku up to a limit
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class SolutionCount {
+    private final int count;
+    private final boolean limitReached;
+    private final boolean completed;
+    private final List<Sudoku> solutions;
+    private final long nodeCount;
+
+    public SolutionCount(int count, boolean limitReached, boolean completed, List<Sudoku> solutions, long nodeCount) {
+        this.count = count;
+        this.limitReached = limitReached;
+        this.completed = completed;
+        this.solutions = Collections.unmodifiableList(solutions);
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * Number of solutions found, never more than the limit
+     *
+     * @return Number of solutions found
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Whether the search stopped because it reached the limit, in which
+     * case there may be more solutions than were counted
+     *
+     * @return Whether the limit was reached
+     */
+    public boolean isLimitReached() {
+        return limitReached;
+    }
+
+    /**
+     * Whether the search finished, either by reaching the limit or by
+     * looking at every possibility. A search that was cancelled first has
+     * not, and its count is only a lower bound.
+     *
+     * @return Whether the count can be trusted
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Whether the Sudoku has exactly one solution. Needs a limit of at
+     * least 2 and a completed search.
+     *
+     * @return Whether the solution is unique
+     */
+    public boolean isUnique() {
+        return count == 1 && completed && !limitReached;
+    }
+
+    /**
+     * The solutions found, in the order the search found them
+     *
+     * @return Solved Sudokus
+     */
+    public List<Sudoku> getSolutions() {
+        return solutions;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,145 @@
+package src;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache of solutions in front of a solver, keyed by the canonical form
+ * of the puzzle so that a puzzle that is a relabeled, permuted or
+ * transposed copy of one solved before is answered without a search. The
+ * solver is run on the canonical board and its solution is mapped back
+ * through the inverse of the transform. Puzzles without a solution are
+ * cached as well.
+ *
+ * The cache holds at most a fixed number of puzzles and evicts the least
+ * recently used one first. It is safe to share between threads; two
+ * threads missing on the same puzzle at once may both solve it.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class SolveCache {
+    private static final int[][] NO_SOLUTION = new int[0][];
+
+    private final Function<int[][], Sudoku> solver;
+    private final Map<String, int[][]> solutions;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor for a cache in front of the (DFS) sudoku solving algorithm
+     *
+     * @param capacity Largest number of puzzles to keep
+     */
+    public SolveCache(int capacity) {
+        this(capacity, SudokuSolver::SudokuSolver);
+    }
+
+    /**
+     * Constructor for a cache in front of the given solver
+     *
+     * @param capacity Largest number of puzzles to keep
+     * @param solver Solver returning the solved Sudoku, or null if there is none
+     */
+    public SolveCache(int capacity, Function<int[][], Sudoku> solver) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at least 1");
+        }
+        this.solver = solver;
+        this.solutions = new LinkedHashMap<String, int[][]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, int[][]> eldest) {
+                if(size() <= capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Solve a Sudoku, from the cache if an equivalent puzzle was solved
+     * before. The input array is not modified.
+     *
+     * @param sudoku array representing sudoku
+     * @return Solved Sudoku, null if it has no solution
+     */
+    public Sudoku SudokuSolver(int[][] sudoku) {
+        CanonicalForm form = CanonicalForm.of(sudoku);
+        String key = form.key();
+        int[][] solution;
+        synchronized (this) {
+            solution = solutions.get(key);
+            if(solution != null) hits++;
+            else misses++;
+        }
+
+        if(solution == null) {
+            Sudoku solved = solver.apply(form.getBoard());
+            solution = solved == null ? NO_SOLUTION : solved.getBoard();
+            synchronized (this) {
+                solutions.put(key, solution);
+            }
+        }
+        return solution == NO_SOLUTION ? null : new Sudoku(form.toOriginal(solution));
+    }
+
+    /**
+     * Number of puzzles answered from the cache
+     *
+     * @return Number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Number of puzzles that had to be solved
+     *
+     * @return Number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Number of puzzles dropped to keep the cache within its capacity
+     *
+     * @return Number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Share of lookups answered from the cache
+     *
+     * @return Hits over lookups, 0 before the first lookup
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : hits / (double) lookups;
+    }
+
+    /**
+     * Number of puzzles currently cached
+     *
+     * @return Size of the cache
+     */
+    public synchronized int size() {
+        return solutions.size();
+    }
+
+    /**
+     * Drop every cached puzzle. The statistics are kept.
+     */
+    public synchronized void clear() {
+        solutions.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("size=%d hits=%d misses=%d evictions=%d", solutions.size(), hits, misses, evictions);
+    }
+}
@@ -0,0 +1,211 @@
+package src;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Small HTTP front end for a SolverService on the JDK's built-in server,
+ * listening on the loopback address only.
+ *
+ * POST /solve with a puzzle in SudokuFormat as the body solves it. The
+ * query parameter timeout sets the deadline in milliseconds and solver
+ * picks the solver: dfs (the default, time sliced), sat, dancing-links
+ * or annealing. The reply is the solution in SudokuFormat with status
+ * 200, or 400 for a puzzle that cannot be read, 422 for one with no
+ * solution, 503 when the service is at capacity and 504 when the
+ * deadline passed. GET /stats returns the counters of the service.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class SolverHttpServer implements AutoCloseable {
+    private static final int MAX_BODY_BYTES = 1 << 16;
+
+    private final SolverService service;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final Map<String, PortfolioSolver.Strategy> strategies = new HashMap<>();
+
+    /**
+     * Constructor for a server of a service, not yet started
+     *
+     * @param service Service to hand the puzzles to
+     * @param port Port to listen on, 0 for any free port
+     * @throws IOException If the port cannot be bound
+     */
+    public SolverHttpServer(SolverService service, int port) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService virtual = SolverService.newVirtualThreadExecutor();
+        this.handlers = virtual != null ? virtual : Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "solver-http-handler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        strategies.put("sat", PortfolioSolver.Strategy.sat());
+        strategies.put("dancing-links", PortfolioSolver.Strategy.dancingLinks());
+        strategies.put("annealing", PortfolioSolver.Strategy.annealing("annealing", AnnealingOptions.boxPreserving()));
+        server.setExecutor(handlers);
+        server.createContext("/solve", this::solve);
+        server.createContext("/stats", this::stats);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Port the server listens on
+     *
+     * @return Bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void solve(HttpExchange exchange) throws IOException {
+        try {
+            if(!"POST".equals(exchange.getRequestMethod())) {
+                reply(exchange, 405, "Use POST");
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            int[][] puzzle;
+            Duration timeout;
+            PortfolioSolver.Strategy strategy = null;
+            try {
+                puzzle = SudokuFormat.parse(body(exchange).trim());
+                timeout = query.containsKey("timeout") ? Duration.ofMillis(Long.parseLong(query.get("timeout"))) : null;
+                String solver = query.getOrDefault("solver", "dfs");
+                if(!solver.equals("dfs")) {
+                    strategy = strategies.get(solver);
+                    if(strategy == null) throw new IllegalArgumentException("Unknown solver: " + solver);
+                }
+            } catch (IllegalArgumentException e) {
+                reply(exchange, 400, e.getMessage());
+                return;
+            }
+
+            CompletableFuture<SolverOutput> future = strategy == null ? service.submit(puzzle, timeout)
+                    : service.submit(puzzle, strategy, timeout);
+            SolverOutput output;
+            try {
+                output = future.get();
+            } catch (ExecutionException e) {
+                if(e.getCause() instanceof RejectedExecutionException) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    reply(exchange, 503, e.getCause().getMessage());
+                } else {
+                    reply(exchange, 500, String.valueOf(e.getCause()));
+                }
+                return;
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                reply(exchange, 503, "Interrupted");
+                return;
+            }
+
+            if(output.isSolved()) {
+                reply(exchange, 200, SudokuFormat.format(output.getSudoku().getBoard()));
+            } else if(output.getTermination() == SolverOutput.Termination.UNSOLVABLE) {
+                reply(exchange, 422, "No solution");
+            } else if(output.getTermination() == SolverOutput.Termination.TIME_BUDGET) {
+                reply(exchange, 504, "Deadline passed");
+            } else {
+                reply(exchange, 503, "Stopped: " + output.getTermination());
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try {
+            reply(exchange, 200, service.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String body(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+                if(bytes.size() > MAX_BODY_BYTES) throw new IllegalArgumentException("Puzzle too large");
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8.name());
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if(rawQuery == null) return parameters;
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if(equals <= 0) continue;
+            try {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8.name()),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8.name()));
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        return parameters;
+    }
+
+    private static void reply(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = (text + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Stop listening and stop the handler threads. The service is not
+     * closed.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdown();
+    }
+
+    /**
+     * Serve puzzles from the command line
+     *
+     * @param args optionally the port, the number of concurrent solves and
+     *             the number of queued requests
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int concurrent = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queued = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+        SolverService service = new SolverService(concurrent, queued, SolverService.AdmissionPolicy.REJECT);
+        SolverHttpServer server = new SolverHttpServer(service, port);
+        server.start();
+        System.out.println("Listening on http://localhost:" + server.getPort() + "/solve " + service);
+    }
+}
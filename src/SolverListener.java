@@ -0,0 +1,73 @@
+package src;
+
+/**
+ * Receives events from a running solver. Every method does nothing by
+ * default so a listener only overrides the events it needs. Solvers only
+ * call a listener that was set on their options, so a solve without one
+ * pays nothing for this interface.
+ *
+ * Listeners are called on the solving thread, and from several threads
+ * at once by the parallel solver.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public interface SolverListener {
+
+    /**
+     * A value was guessed for a square
+     *
+     * @param row Row of the square
+     * @param column Column of the square
+     * @param value Value guessed
+     */
+    default void onGuess(int row, int column, int value) {
+    }
+
+    /**
+     * Propagation showed a guessed value to be impossible
+     *
+     * @param row Row of the square
+     * @param column Column of the square
+     * @param value Value guessed
+     */
+    default void onContradiction(int row, int column, int value) {
+    }
+
+    /**
+     * A guessed value was taken back
+     *
+     * @param row Row of the square
+     * @param column Column of the square
+     * @param value Value guessed
+     */
+    default void onBacktrack(int row, int column, int value) {
+    }
+
+    /**
+     * The annealing solver proposed a move
+     *
+     * @param iteration Number of the move
+     * @param entropy Entropy of the board after the move
+     * @param accepted Whether the move was kept
+     */
+    default void onMove(long iteration, int entropy, boolean accepted) {
+    }
+
+    /**
+     * The annealing solver filled the board again from scratch
+     *
+     * @param restart Number of the restart
+     * @param entropy Entropy of the new board
+     */
+    default void onRestart(int restart, int entropy) {
+    }
+
+    /**
+     * The solver stopped
+     *
+     * @param output Output of the solve
+     */
+    default void onFinish(SolverOutput output) {
+    }
+}
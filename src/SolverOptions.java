@@ -0,0 +1,174 @@
+package src;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * SolverOptions collects the settings for a single run of the
+ * (DFS) sudoku solving algorithm. Every setter returns the options
+ * so that settings can be chained.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class SolverOptions {
+
+    /**
+     * How the solver explores alternatives when it has to guess a value
+     */
+    public enum SearchMode {
+        /** Clone the board for every guessed value */
+        CLONE,
+        /** Guess on a single board and undo the changes from a trail */
+        IN_PLACE,
+        /** Search in place from an explicit stack, see ResumableSearch */
+        EXPLICIT_STACK
+    }
+
+    /**
+     * Which empty square the solver guesses a value for next
+     */
+    public enum VariableOrdering {
+        /** First empty square in row-major order */
+        ROW_MAJOR,
+        /** Square with the fewest possible values */
+        MRV,
+        /** Fewest possible values, ties broken by the most empty peers */
+        MRV_DEGREE,
+        /** Fewest possible values, ties broken at random */
+        MRV_RANDOM
+    }
+
+    /**
+     * In which order the solver tries the possible values of a square
+     */
+    public enum ValueOrdering {
+        /** Smallest value first */
+        ASCENDING,
+        /** Value that removes the fewest possibilities from empty peers first */
+        LEAST_CONSTRAINING,
+        /** Random order */
+        RANDOM
+    }
+
+    private SearchMode searchMode = SearchMode.CLONE;
+    private VariableOrdering variableOrdering = VariableOrdering.ROW_MAJOR;
+    private ValueOrdering valueOrdering = ValueOrdering.ASCENDING;
+    private long seed = System.nanoTime();
+    private BooleanSupplier cancellation;
+    private SolverListener listener;
+    private DeductionPipeline deductions;
+
+    /**
+     * Constructor for default options: cloning search, row-major square
+     * ordering and ascending values
+     *
+     */
+    public SolverOptions() {
+    }
+
+    /**
+     * Constructor copying every setting of other options
+     *
+     * @param other Options to copy
+     */
+    public SolverOptions(SolverOptions other) {
+        this.searchMode = other.searchMode;
+        this.variableOrdering = other.variableOrdering;
+        this.valueOrdering = other.valueOrdering;
+        this.seed = other.seed;
+        this.cancellation = other.cancellation;
+        this.listener = other.listener;
+        this.deductions = other.deductions;
+    }
+
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    public SolverOptions setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
+        return this;
+    }
+
+    public VariableOrdering getVariableOrdering() {
+        return variableOrdering;
+    }
+
+    public SolverOptions setVariableOrdering(VariableOrdering variableOrdering) {
+        this.variableOrdering = variableOrdering;
+        return this;
+    }
+
+    public ValueOrdering getValueOrdering() {
+        return valueOrdering;
+    }
+
+    public SolverOptions setValueOrdering(ValueOrdering valueOrdering) {
+        this.valueOrdering = valueOrdering;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Seed for the random tie-breaking and random value ordering so that
+     * a solve can be repeated exactly
+     *
+     * @param seed Seed for the random number generator
+     * @return These options
+     */
+    public SolverOptions setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public BooleanSupplier getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Condition checked before every guess; once it returns true the
+     * solver stops and reports the Sudoku as unsolved
+     *
+     * @param cancellation Condition to stop the solve, or null to never stop
+     * @return These options
+     */
+    public SolverOptions setCancellation(BooleanSupplier cancellation) {
+        this.cancellation = cancellation;
+        return this;
+    }
+
+    public SolverListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Listener told about every event of the solve
+     *
+     * @param listener Receiver of solver events, or null for none
+     * @return These options
+     */
+    public SolverOptions setListener(SolverListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public DeductionPipeline getDeductions() {
+        return deductions;
+    }
+
+    /**
+     * Deduction strategies run on the starting board and after every
+     * guess, before the search branches again. What they did is reported
+     * in the statistics of the output.
+     *
+     * @param deductions Pipeline of strategies, or null for singles only
+     * @return These options
+     */
+    public SolverOptions setDeductions(DeductionPipeline deductions) {
+        this.deductions = deductions;
+        return this;
+    }
+}
@@ -1,8 +1,33 @@
 package src;
 
 public class SolverOutput {
+
+    /**
+     * Why a solver stopped
+     */
+    public enum Termination {
+        /** A solution was found */
+        SOLVED,
+        /** The search finished without finding a solution */
+        UNSOLVABLE,
+        /** The caller asked the solver to stop */
+        CANCELLED,
+        /** The solver ran out of iterations */
+        ITERATION_BUDGET,
+        /** The solver ran out of time */
+        TIME_BUDGET,
+        /** The search stopped making progress and had no restarts left */
+        STALLED,
+        /** The solver threw an exception; nothing is known about the puzzle */
+        FAILED
+    }
+
     private boolean isSolved;
     private Sudoku sudoku;
+    private long nodeCount;
+    private Termination termination;
+    private SolverStatistics statistics;
+    private Throwable failure;
 
     public SolverOutput(boolean isSolved) throws IllegalArgumentException{
         if(isSolved) {
@@ -10,18 +35,49 @@ public class SolverOutput {
         } else {
             this.isSolved = false;
             this.sudoku = null;
+            this.termination = Termination.UNSOLVABLE;
         }
     }
 
+    /**
+     * Constructor for the output of a solver that threw an exception
+     *
+     * @param failure Exception the solver threw
+     */
+    public SolverOutput(Throwable failure) {
+        this(false);
+        this.termination = Termination.FAILED;
+        this.failure = failure;
+    }
+
     public SolverOutput(boolean isSolved, Sudoku sudoku) {
         if(isSolved && sudoku == null) {
             throw new IllegalArgumentException("You cannot pass no sudoku if sudoku was solved!");
         } else {
             this.isSolved = isSolved;
             this.sudoku = sudoku;
+            this.termination = isSolved ? Termination.SOLVED : Termination.UNSOLVABLE;
         }
     }
 
+    public SolverOutput(boolean isSolved, Sudoku sudoku, long nodeCount) {
+        this(isSolved, sudoku);
+        this.nodeCount = nodeCount;
+    }
+
+    public SolverOutput(boolean isSolved, Sudoku sudoku, long nodeCount, Termination termination) {
+        this(isSolved, sudoku, nodeCount);
+        if(isSolved != (termination == Termination.SOLVED)) {
+            throw new IllegalArgumentException("Termination " + termination + " does not match the result");
+        }
+        this.termination = termination;
+    }
+
+    public SolverOutput(boolean isSolved, Sudoku sudoku, Termination termination, SolverStatistics statistics) {
+        this(isSolved, sudoku, statistics.getNodes(), termination);
+        this.statistics = statistics;
+    }
+
     public Sudoku getSudoku() {
         return sudoku;
     }
@@ -29,4 +85,44 @@ public class SolverOutput {
     public boolean isSolved() {
         return isSolved;
     }
-}
\ No newline at end of file
+
+    /**
+     * Number of guessed values the solver tried before finishing
+     *
+     * @return Number of search nodes expanded
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Counters and timings of the solve. Solvers that only count nodes
+     * leave every other counter at zero.
+     *
+     * @return Statistics of the solve
+     */
+    public SolverStatistics getStatistics() {
+        if(statistics == null) {
+            statistics = SolverStatistics.ofNodes(nodeCount);
+        }
+        return statistics;
+    }
+
+    /**
+     * Reason the solver stopped
+     *
+     * @return How the solve ended
+     */
+    public Termination getTermination() {
+        return termination;
+    }
+
+    /**
+     * Exception the solver threw, null unless the termination is FAILED
+     *
+     * @return Failure of the solver
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+}
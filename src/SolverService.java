@@ -0,0 +1,339 @@
+package src;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Solves puzzles asynchronously, one thread per request. Every request
+ * gets a CompletableFuture, an optional deadline and a cancellation that
+ * reaches the running search: cancelling the future, passing the deadline
+ * or closing the service makes the solver stop at its next check.
+ *
+ * Admission is bounded. At most maxConcurrent requests solve at once and
+ * at most maxQueued more wait for their turn; a request beyond that is
+ * rejected at once or waits for room until its deadline, depending on the
+ * admission policy. By default requests are searched with ResumableSearch
+ * in slices of SLICE_MILLIS, giving the solving slot back to the longest
+ * waiting request after every slice, so one long solve cannot hold a slot
+ * while short ones queue behind it.
+ *
+ * Every admitted request has a thread of its own, which waits for a
+ * slot on a fair semaphore and so keeps checking its deadline and its
+ * cancellation while it waits. The threads are virtual when the JVM has
+ * them (Java 21 and later); otherwise they are platform threads, at most
+ * maxConcurrent + maxQueued of them, reused from request to request.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class SolverService implements AutoCloseable {
+    /** Longest time a request solves before giving its slot to the next one */
+    public static final long SLICE_MILLIS = 10;
+    /** Longest time a waiting request goes without checking its cancellation */
+    private static final long POLL_MILLIS = 10;
+
+    /**
+     * What happens to a request when the admission queue is full
+     */
+    public enum AdmissionPolicy {
+        /** Fail the future at once with a RejectedExecutionException */
+        REJECT,
+        /** Block the caller of submit until there is room or the deadline passes */
+        BLOCK
+    }
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Semaphore admission;
+    private final Semaphore slots;
+    private final int capacity;
+    private final AdmissionPolicy policy;
+    private final SolverOptions searchOptions;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * A request that has been admitted
+     */
+    private final class Request {
+        private final long deadline;
+        private final boolean hasDeadline;
+        private volatile boolean cancelled;
+
+        private Request(Duration timeout) {
+            this.hasDeadline = timeout != null;
+            this.deadline = hasDeadline ? System.nanoTime() + timeout.toNanos() : 0;
+        }
+
+        private boolean isExpired() {
+            return hasDeadline && System.nanoTime() - deadline >= 0;
+        }
+
+        private boolean isStopped() {
+            return cancelled || closed || isExpired();
+        }
+
+        /**
+         * Take a solving slot, giving up if the request stops first
+         */
+        private boolean acquireSlot() {
+            try {
+                while (!isStopped()) {
+                    if(slots.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Constructor for a service with one solving slot per processor, room
+     * for 1024 waiting requests and rejection when that is full
+     */
+    public SolverService() {
+        this(Runtime.getRuntime().availableProcessors(), 1024, AdmissionPolicy.REJECT);
+    }
+
+    /**
+     * Constructor for a service
+     *
+     * @param maxConcurrent Number of requests solving at once
+     * @param maxQueued Number of admitted requests waiting for a slot
+     * @param policy What to do with a request when the queue is full
+     */
+    public SolverService(int maxConcurrent, int maxQueued, AdmissionPolicy policy) {
+        if(maxConcurrent < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("A service needs at least one slot and a queue of zero or more");
+        }
+        this.capacity = maxConcurrent + maxQueued;
+        this.admission = new Semaphore(capacity);
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.policy = policy;
+        this.searchOptions = new SolverOptions()
+                .setSearchMode(SolverOptions.SearchMode.EXPLICIT_STACK)
+                .setVariableOrdering(SolverOptions.VariableOrdering.MRV);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        // Every admitted request needs a thread of its own so that it waits on the slots, not in an executor queue
+        this.executor = virtual != null ? virtual : Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "solver-service-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executor starting a virtual thread per task, or null if the JVM has
+     * no virtual threads. Looked up by reflection so the service also
+     * builds and runs on older JVMs.
+     *
+     * @return New executor or null
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Solve a puzzle with the time sliced in place search. The input
+     * array is not modified.
+     *
+     * @param sudoku array representing sudoku
+     * @param timeout Time the request may take from now, null for none
+     * @return Future of the output, failed with a
+     *         RejectedExecutionException if the request was not admitted
+     */
+    public CompletableFuture<SolverOutput> submit(int[][] sudoku, Duration timeout) {
+        int[][] board = ProbabalisticSudokuSolver.copy(sudoku);
+        return admit(timeout, request -> {
+            SolverOptions options = new SolverOptions(searchOptions).setCancellation(request::isStopped);
+            ResumableSearch search = null;
+            SolverOutput output = null;
+            do {
+                if(!request.acquireSlot()) break;
+                try {
+                    if(search == null) search = new ResumableSearch(board, options);
+                    output = search.run(0, SLICE_MILLIS);
+                } finally {
+                    slots.release();
+                }
+            } while (output.getTermination() == SolverOutput.Termination.TIME_BUDGET);
+            return output;
+        });
+    }
+
+    /**
+     * Solve a puzzle with a strategy, which keeps its solving slot until
+     * it finishes. The input array is not modified.
+     *
+     * @param sudoku array representing sudoku
+     * @param strategy Solver to use
+     * @param timeout Time the request may take from now, null for none
+     * @return Future of the output, failed with a
+     *         RejectedExecutionException if the request was not admitted
+     */
+    public CompletableFuture<SolverOutput> submit(int[][] sudoku, PortfolioSolver.Strategy strategy, Duration timeout) {
+        int[][] board = ProbabalisticSudokuSolver.copy(sudoku);
+        return admit(timeout, request -> {
+            if(!request.acquireSlot()) return null;
+            try {
+                return strategy.solve(board, request::isStopped);
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    /**
+     * Admit a request and start it on its own thread
+     *
+     * @param timeout Time the request may take from now, null for none
+     * @param work Solve to run, returning null if it never started
+     * @return Future of the output
+     */
+    private CompletableFuture<SolverOutput> admit(Duration timeout, Function<Request, SolverOutput> work) {
+        CompletableFuture<SolverOutput> future = new CompletableFuture<>();
+        submitted.incrementAndGet();
+        Request request = new Request(timeout);
+        if(!reserve(request)) {
+            rejected.incrementAndGet();
+            future.completeExceptionally(new RejectedExecutionException(closed
+                    ? "The service is closed" : "The service is at capacity"));
+            return future;
+        }
+        future.whenComplete((output, error) -> {
+            if(future.isCancelled()) request.cancelled = true;
+        });
+        try {
+            executor.execute(() -> {
+                SolverOutput output = null;
+                Throwable failure = null;
+                try {
+                    output = result(request, work.apply(request));
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                } finally {
+                    // Make room before the caller hears back, so it can submit again at once
+                    admission.release();
+                }
+                if(failure != null) future.completeExceptionally(failure);
+                else future.complete(output);
+            });
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            rejected.incrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Take a place in the admission queue according to the policy
+     */
+    private boolean reserve(Request request) {
+        if(closed) return false;
+        if(admission.tryAcquire()) return true;
+        if(policy == AdmissionPolicy.REJECT) return false;
+        try {
+            while (!request.isStopped()) {
+                if(admission.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Output of a request, reporting a solve stopped by its deadline as
+     * TIME_BUDGET and one stopped by cancellation or closing as CANCELLED,
+     * whether it stopped while solving or while waiting for a slot
+     */
+    private SolverOutput result(Request request, SolverOutput output) {
+        if(output != null && output.isSolved()) {
+            solved.incrementAndGet();
+            return output;
+        }
+        if(output != null && output.getTermination() == SolverOutput.Termination.UNSOLVABLE) return output;
+        SolverOutput.Termination termination;
+        if(request.isExpired() && !request.cancelled && !closed) {
+            timedOut.incrementAndGet();
+            termination = SolverOutput.Termination.TIME_BUDGET;
+        } else if(request.isStopped()) {
+            termination = SolverOutput.Termination.CANCELLED;
+        } else {
+            return output;
+        }
+        if(output == null) return new SolverOutput(false, null, 0, termination);
+        if(output.getStatistics() == null) return new SolverOutput(false, null, output.getNodeCount(), termination);
+        return new SolverOutput(false, null, termination, output.getStatistics());
+    }
+
+    /**
+     * Whether requests run on virtual threads
+     *
+     * @return Whether the JVM has virtual threads
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Number of admitted requests that have not finished
+     *
+     * @return Requests solving or waiting for a slot
+     */
+    public int getInFlight() {
+        return capacity - admission.availablePermits();
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getSolved() {
+        return solved.get();
+    }
+
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    @Override
+    public String toString() {
+        return "submitted=" + getSubmitted() + " rejected=" + getRejected() + " solved=" + getSolved()
+                + " timedOut=" + getTimedOut() + " inFlight=" + getInFlight()
+                + " virtualThreads=" + virtualThreads;
+    }
+
+    /**
+     * Stop admitting requests and stop every request still running; their
+     * futures complete as cancelled outputs
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,202 @@
+package src;
+
+import java.util.Arrays;
+
+/**
+ * Counters and timings collected while a solver runs. The search
+ * solvers fill in nodes, backtracks, propagations and contradictions;
+ * the annealing solvers fill in moves, restarts, replica exchanges and
+ * the entropy trajectory. Counters a solver does not use stay at zero.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public class SolverStatistics {
+    private static final int MAX_TRAJECTORY = 4096;
+
+    long nodes;
+    long backtracks;
+    long propagations;
+    long contradictions;
+    long acceptedSwaps;
+    long rejectedSwaps;
+    long restarts;
+    long exchanges;
+    long setupNanos;
+    long searchNanos;
+    DeductionReport deductions;
+    private long[] trajectoryIterations = new long[16];
+    private int[] trajectoryEntropies = new int[16];
+    private int trajectorySize;
+
+    /**
+     * Statistics of a solve that only counted search nodes
+     *
+     * @param nodes Number of search nodes expanded
+     * @return New statistics
+     */
+    static SolverStatistics ofNodes(long nodes) {
+        SolverStatistics statistics = new SolverStatistics();
+        statistics.nodes = nodes;
+        return statistics;
+    }
+
+    /**
+     * Record a point of the entropy trajectory. Points past the capacity
+     * are dropped so that a long solve cannot grow without bound.
+     *
+     * @param iteration Move at which the entropy was reached
+     * @param entropy Entropy of the board
+     */
+    void recordEntropy(long iteration, int entropy) {
+        if(trajectorySize == MAX_TRAJECTORY) return;
+        if(trajectorySize == trajectoryIterations.length) {
+            trajectoryIterations = Arrays.copyOf(trajectoryIterations, 2 * trajectorySize);
+            trajectoryEntropies = Arrays.copyOf(trajectoryEntropies, 2 * trajectorySize);
+        }
+        trajectoryIterations[trajectorySize] = iteration;
+        trajectoryEntropies[trajectorySize++] = entropy;
+    }
+
+    /**
+     * Add the counters of another solve of part of the same puzzle
+     *
+     * @param other Statistics to add
+     */
+    synchronized void add(SolverStatistics other) {
+        nodes += other.nodes;
+        backtracks += other.backtracks;
+        propagations += other.propagations;
+        contradictions += other.contradictions;
+        acceptedSwaps += other.acceptedSwaps;
+        rejectedSwaps += other.rejectedSwaps;
+        restarts += other.restarts;
+        exchanges += other.exchanges;
+        if(other.deductions != null) {
+            if(deductions == null) deductions = new DeductionReport(other.deductions.getStrategies());
+            deductions.add(other.deductions);
+        }
+    }
+
+    /**
+     * Report of the deduction strategies, created the first time it is needed
+     *
+     * @param pipeline Pipeline the report counts
+     * @return Report of this solve
+     */
+    DeductionReport deductions(DeductionPipeline pipeline) {
+        if(deductions == null) deductions = pipeline.newReport();
+        return deductions;
+    }
+
+    /**
+     * Number of guessed values the solver tried
+     *
+     * @return Number of search nodes expanded
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Number of guessed values that were taken back
+     *
+     * @return Number of backtracks
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * Number of values placed by propagation rather than by guessing
+     *
+     * @return Number of forced placements
+     */
+    public long getPropagations() {
+        return propagations;
+    }
+
+    /**
+     * Number of guessed values that propagation showed to be impossible
+     *
+     * @return Number of contradictions
+     */
+    public long getContradictions() {
+        return contradictions;
+    }
+
+    public long getAcceptedSwaps() {
+        return acceptedSwaps;
+    }
+
+    public long getRejectedSwaps() {
+        return rejectedSwaps;
+    }
+
+    public long getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * Number of times two replicas of parallel tempering swapped boards
+     *
+     * @return Number of accepted replica exchanges
+     */
+    public long getExchanges() {
+        return exchanges;
+    }
+
+    /**
+     * Time spent building the starting board, including the initial
+     * propagation or fill
+     *
+     * @return Setup time in nanoseconds
+     */
+    public long getSetupNanos() {
+        return setupNanos;
+    }
+
+    /**
+     * Time spent searching or annealing
+     *
+     * @return Search time in nanoseconds
+     */
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * What the deduction strategies did, null if the solve ran none
+     *
+     * @return Report of the deduction strategies
+     */
+    public DeductionReport getDeductions() {
+        return deductions;
+    }
+
+    /**
+     * Moves at which the points of the entropy trajectory were recorded:
+     * the start of every run and every new lowest entropy of a run
+     *
+     * @return Move numbers of the trajectory
+     */
+    public long[] getTrajectoryIterations() {
+        return Arrays.copyOf(trajectoryIterations, trajectorySize);
+    }
+
+    /**
+     * Entropies of the points of the entropy trajectory
+     *
+     * @return Entropies of the trajectory
+     */
+    public int[] getTrajectoryEntropies() {
+        return Arrays.copyOf(trajectoryEntropies, trajectorySize);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("nodes=%d backtracks=%d propagations=%d contradictions=%d accepted=%d rejected=%d"
+                        + " restarts=%d exchanges=%d setup=%.3fms search=%.3fms", nodes, backtracks, propagations,
+                contradictions, acceptedSwaps, rejectedSwaps, restarts, exchanges, setupNanos / 1e6, searchNanos / 1e6);
+    }
+}
@@ -9,13 +9,34 @@ import java.util.*;
  * @version 1.0
  */
 public class Sudoku {
-    protected int[][] board;
+    protected final SudokuGeometry geometry;
+    private byte[] cells;
+    private short[] wideCells;
     protected PossibilitySpace[][] possibilityList;
+    protected long[][] rowOccupancy;
+    protected long[][] columnOccupancy;
+    protected long[][] boxOccupancy;
     protected boolean solvable;
+    private int[] trail;
+    private int trailSize;
+    private long propagationCount;
+    private int[] cellQueue;
+    private boolean[] cellQueued;
+    private int cellQueueHead;
+    private int cellQueueSize;
+    private int[] unitQueue;
+    private boolean[] unitQueued;
+    private int unitQueueHead;
+    private int unitQueueSize;
     public static int size = 16;
 
+    private static final int MAX_BYTE_VALUE = 255;
+    private static final int ASSIGNMENT = 0;
+    private static final int ELIMINATION = 1;
+
     /**
-     * Set the size of the Sudokus to be created
+     * Set the default size of the Sudokus created without a board or
+     * geometry. Boards that carry their own geometry are not affected.
      *
      * @param newSize The square root of the desired size of the Sudoku
      */
@@ -25,103 +46,240 @@ public class Sudoku {
 
     /**
      * Encapsulation of the Possible Value that the Sudoku can take
-     * at an index and still be valid
+     * at an index and still be valid. Values are stored as a bitset where
+     * value v occupies bit (v - 1); boards larger than 64x64 spill into
+     * further words.
      *
      * @author Chidozie Onyeze
      * @version 1.0
      */
     protected class PossibilitySpace implements Iterable<Integer>{
-        private List<Integer> possibilityList;
+        private final long[] possibilityList;
+        private final int cell;
+        private int count;
 
         /**
          * Constructor for a possibility space initializes
-         * the backing array list
+         * the backing bitset with no values
          *
+         * @param cell Cell index of the square this space belongs to
          */
-        PossibilitySpace() {
-            possibilityList = new ArrayList<>();
+        PossibilitySpace(int cell) {
+            this.cell = cell;
+            possibilityList = new long[geometry.getWordCount()];
+            count = 0;
         }
 
         /**
-         * Constructor for a possibility space sets the backing
-         * array list to be the input array
+         * Remove and element from the backing bitset
          *
-         * @param possibilityList Array to be used as backing array list
+         * @param value Value to be removed
          */
-        PossibilitySpace(List<Integer> possibilityList) {
-            this.possibilityList = possibilityList;
+        public void remove(int value) {
+            int word = (value - 1) >>> 6;
+            long bit = 1L << (value - 1);
+            if((possibilityList[word] & bit) != 0) {
+                possibilityList[word] &= ~bit;
+                count--;
+                if(trail != null) record(cell, value, ELIMINATION);
+                enqueue(cell);
+            }
         }
 
         /**
-         * Remove and element from the backing array list
+         * Put back a value removed by remove, used when undoing the trail
          *
-         * @param value Value to be removed
+         * @param value Value to be restored
          */
-        public void remove(int value) {
-            possibilityList.remove((Integer)value);
+        private void restore(int value) {
+            possibilityList[(value - 1) >>> 6] |= 1L << (value - 1);
+            count++;
+        }
+
+        /**
+         * Get the smallest value in the bitset that is larger than the given value
+         *
+         * @param after Value to search past, 0 to start from the beginning
+         * @return Next value in the bitset or 0 if there is none
+         */
+        public int nextAfter(int after) {
+            if(after >= geometry.getSize()) return 0;
+            int word = after >>> 6;
+            long bits = possibilityList[word] & (-1L << after);
+            while (bits == 0) {
+                if(++word == possibilityList.length) return 0;
+                bits = possibilityList[word];
+            }
+            return (word << 6) + Long.numberOfTrailingZeros(bits) + 1;
         }
 
         /**
          * Check whether a given value is in the possibility space
          *
-         * @param value Value to look for in the backing list
-         * @return Whether the specified value is in the list
+         * @param value Value to look for in the backing bitset
+         * @return Whether the specified value is in the bitset
          */
         public boolean contains(int value) {
-            return possibilityList.contains(value);
+            if(value < 1 || value > geometry.getSize()) return false;
+            return (possibilityList[(value - 1) >>> 6] & (1L << (value - 1))) != 0;
         }
 
         /**
-         * Get the next element of the List
+         * Get the smallest value in the bitset
          *
-         * @return Next element of the list
+         * @return Smallest value in the bitset
          */
         public int getNext() {
-            return possibilityList.get(0);
+            for (int word = 0; word < possibilityList.length; word++) {
+                if(possibilityList[word] != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(possibilityList[word]) + 1;
+                }
+            }
+            throw new IndexOutOfBoundsException("Possibility space is empty");
         }
 
         /**
-         * Get the element of the List at the specified index
+         * Get the element of the bitset at the specified index
+         * in ascending order
          *
          * @param index index to get from
-         * @return Next element of the list
+         * @return Value at that index
          */
         public int get(int index) {
-            return possibilityList.get(index);
+            if(index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+            }
+            for (int word = 0; word < possibilityList.length; word++) {
+                long bits = possibilityList[word];
+                int wordCount = Long.bitCount(bits);
+                if(index < wordCount) {
+                    for (int k = 0; k < index; k++) {
+                        bits &= bits - 1;
+                    }
+                    return (word << 6) + Long.numberOfTrailingZeros(bits) + 1;
+                }
+                index -= wordCount;
+            }
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+
+        /**
+         * Replace the contents of the bitset with every value from 1 to size
+         * that is not set in any of the given occupancy masks
+         *
+         * @param row Occupancy mask of the row
+         * @param column Occupancy mask of the column
+         * @param box Occupancy mask of the box
+         */
+        void setFree(long[] row, long[] column, long[] box) {
+            count = 0;
+            for (int word = 0; word < possibilityList.length; word++) {
+                possibilityList[word] = fullWord(geometry.getSize(), word) & ~(row[word] | column[word] | box[word]);
+                count += Long.bitCount(possibilityList[word]);
+            }
+        }
+
+        /**
+         * Empty the bitset
+         *
+         */
+        void clear() {
+            if(trail != null) {
+                for (int value = nextAfter(0); value != 0; value = nextAfter(value)) {
+                    record(cell, value, ELIMINATION);
+                }
+            }
+            for (int word = 0; word < possibilityList.length; word++) {
+                possibilityList[word] = 0L;
+            }
+            count = 0;
+            enqueue(cell);
         }
+
         @Override
         public Iterator<Integer> iterator() {
-            return possibilityList.iterator();
+            final long[] snapshot = possibilityList.clone();
+            return new Iterator<Integer>() {
+                private int word = 0;
+
+                @Override
+                public boolean hasNext() {
+                    while (word < snapshot.length && snapshot[word] == 0) {
+                        word++;
+                    }
+                    return word < snapshot.length;
+                }
+
+                @Override
+                public Integer next() {
+                    if(!hasNext()) throw new NoSuchElementException();
+                    long lowest = snapshot[word] & -snapshot[word];
+                    snapshot[word] ^= lowest;
+                    return (word << 6) + Long.numberOfTrailingZeros(lowest) + 1;
+                }
+            };
         }
 
         /**
-         * Size of the backing List
+         * Size of the backing bitset
          *
-         * @return Size of the backing list
+         * @return Number of values in the bitset
          */
         public int size() {
-            return possibilityList.size();
+            return count;
         }
     }
 
+    /**
+     * Number of 64 bit words needed to hold one bit per value
+     *
+     * @param size Number of values
+     * @return Number of words
+     */
+    static int wordCount(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * Mask of the bits in the given word that correspond to values
+     * between 1 and size
+     *
+     * @param size Number of values
+     * @param word Index of the word
+     * @return Mask of the valid bits in that word
+     */
+    static long fullWord(int size, int word) {
+        int bits = size - (word << 6);
+        if(bits >= 64) return -1L;
+        if(bits <= 0) return 0L;
+        return (1L << bits) - 1;
+    }
+
     //Constructors
+    /**
+     * Constructor for making a board of the default size with known
+     * elements and making all unknown elements empty
+     *
+     * @param fixedEntries list of the known elements
+     */
+    public Sudoku(List<SudokuEntry> fixedEntries) {
+        this(SudokuGeometry.forSize(size), fixedEntries);
+    }
+
     /**
      * Constructor for making a board with known elements
      * and making all unknown elements empty
      *
+     * @param geometry shape of the board
      * @param fixedEntries list of the known elements
      */
-    public Sudoku(List<SudokuEntry> fixedEntries) {
-        board = new int[size][size];
-        possibilityList = new PossibilitySpace[size][size];
+    public Sudoku(SudokuGeometry geometry, List<SudokuEntry> fixedEntries) {
+        this.geometry = geometry;
+        allocateCells();
+        initPossibilitySpaces();
 
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                board[i][j] = 0;
-            }
-        }
         for (SudokuEntry entry : fixedEntries) {
-            board[entry.getXPosition()][entry.getYPosition()] = entry.getValue();
+            setValue(geometry.cellIndex(entry.getXPosition(), entry.getYPosition()), entry.getValue());
         }
 
         updatePossibilitySpace();
@@ -130,46 +288,190 @@ public class Sudoku {
 
     /**
      * Constructor for making a board from a known array
-     * of integers
+     * of integers. The size of the board is taken from the array, and the
+     * values are copied so the array is not changed by the board.
      *
      * @param board array of integers to be converted to a Sudoku board
      */
     public Sudoku(int[][] board) throws IllegalArgumentException {
-        if(board[0].length != size || board.length != size) {
-            throw new IllegalArgumentException("Dimension Mismatch");
+        this(board, true);
+    }
+
+    /**
+     * Constructor for making a board from a known array of integers,
+     * optionally leaving out the possibility spaces. Without them the
+     * squares are only copied; the possibility spaces are built the first
+     * time a method needs them, and no square is filled by propagation.
+     *
+     * @param board array of integers to be converted to a Sudoku board
+     * @param withCandidates Whether to build the possibility spaces and propagate now
+     */
+    protected Sudoku(int[][] board, boolean withCandidates) throws IllegalArgumentException {
+        for (int[] row : board) {
+            if(row.length != board.length) {
+                throw new IllegalArgumentException("Dimension Mismatch");
+            }
         }
 
-        this.board = board;
-        possibilityList = new PossibilitySpace[size][size];
+        this.geometry = SudokuGeometry.forSize(board.length);
+        allocateCells();
+        for (int i = 0; i < board.length; i++) {
+            for (int j = 0; j < board.length; j++) {
+                setValue(geometry.cellIndex(i, j), board[i][j]);
+            }
+        }
+        if(withCandidates) {
+            initPossibilitySpaces();
+            updatePossibilitySpace();
+            autoFillSudoku();
+        }
+    }
 
-        updatePossibilitySpace();
-        autoFillSudoku();
+    /**
+     * Constructor for making a new empty board of the default size
+     *
+     */
+    public Sudoku() {
+        this(SudokuGeometry.forSize(size));
     }
 
     /**
      * Constructor for making a new empty board
      *
+     * @param geometry shape of the board
      */
-    public Sudoku() {
-        possibilityList = new PossibilitySpace[size][size];
-        board = new int[size][size];
+    public Sudoku(SudokuGeometry geometry) {
+        this.geometry = geometry;
+        allocateCells();
+        initPossibilitySpaces();
+
+        updatePossibilitySpace();
+    }
+
+    /**
+     * Constructor for a snapshot of another board. The squares, occupancy
+     * masks and possibility spaces are copied in bulk instead of being
+     * worked out again; the trail is not copied.
+     *
+     * @param other board to copy
+     */
+    protected Sudoku(Sudoku other) {
+        this(other, true);
+    }
+
+    /**
+     * Constructor for a snapshot of another board, optionally copying
+     * only the squares. Possibility spaces left out, or not yet built on
+     * the other board, are built the first time a method needs them.
+     *
+     * @param other board to copy
+     * @param withCandidates Whether to copy the occupancy masks and possibility spaces
+     */
+    protected Sudoku(Sudoku other, boolean withCandidates) {
+        this.geometry = other.geometry;
+        int size = geometry.getSize();
+        if(other.cells != null) {
+            cells = new byte[other.cells.length];
+            System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        } else {
+            wideCells = new short[other.wideCells.length];
+            System.arraycopy(other.wideCells, 0, wideCells, 0, wideCells.length);
+        }
+        propagationCount = other.propagationCount;
+        if(!withCandidates || other.possibilityList == null) return;
+        initPossibilitySpaces();
+
+        int words = geometry.getWordCount();
+        for (int unit = 0; unit < size; unit++) {
+            System.arraycopy(other.rowOccupancy[unit], 0, rowOccupancy[unit], 0, words);
+            System.arraycopy(other.columnOccupancy[unit], 0, columnOccupancy[unit], 0, words);
+            System.arraycopy(other.boxOccupancy[unit], 0, boxOccupancy[unit], 0, words);
+        }
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
-                board[i][j] = 0;
+                PossibilitySpace from = other.possibilityList[i][j];
+                PossibilitySpace to = possibilityList[i][j];
+                System.arraycopy(from.possibilityList, 0, to.possibilityList, 0, words);
+                to.count = from.count;
             }
         }
+        solvable = other.solvable;
+    }
 
-        updatePossibilitySpace();
+    /**
+     * Allocate the squares of the board, one byte per square when every
+     * value fits in a byte and two otherwise
+     *
+     */
+    private void allocateCells() {
+        if(geometry.getSize() <= MAX_BYTE_VALUE) {
+            cells = new byte[geometry.getCellCount()];
+        } else {
+            wideCells = new short[geometry.getCellCount()];
+        }
+    }
+
+    /**
+     * Value of a square by cell index
+     *
+     * @param cell Cell index of the square
+     * @return Value of the square, 0 if it is empty
+     */
+    public int getValue(int cell) {
+        return cells != null ? cells[cell] & 0xFF : wideCells[cell] & 0xFFFF;
+    }
+
+    /**
+     * Value of a square
+     *
+     * @param xPosition x value of the square
+     * @param yPosition y value of the square
+     * @return Value of the square, 0 if it is empty
+     */
+    public int getValue(int xPosition, int yPosition) {
+        return getValue(xPosition * geometry.getSize() + yPosition);
+    }
+
+    /**
+     * Write the value of a square without updating the occupancy masks,
+     * possibility spaces or trail
+     *
+     * @param cell Cell index of the square
+     * @param value Value to store, 0 for empty
+     */
+    protected void setValue(int cell, int value) {
+        if(cells != null) {
+            cells[cell] = (byte) value;
+        } else {
+            wideCells[cell] = (short) value;
+        }
     }
 
     //Public Methods
     /**
-     * Get the backing array for the board
+     * Get the board as an array. The array is a copy; changing it does
+     * not change the board.
      *
-     * @return  Array of integers backing the board
+     * @return  Array of integers holding the board
      */
     public int[][] getBoard() {
-        return  board;
+        int size = geometry.getSize();
+        int[][] board = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                board[i][j] = getValue(i * size + j);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Get the shape of the board
+     *
+     * @return Geometry of the board
+     */
+    public SudokuGeometry getGeometry() {
+        return geometry;
     }
 
     /**
@@ -179,13 +481,7 @@ public class Sudoku {
      * @return  Duplicate board object
      */
     public Sudoku cloneSudoku(){
-        int[][] boardClone = new int[size][size];
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                boardClone[i][j] = board[i][j];
-            }
-        }
-        return new Sudoku(boardClone);
+        return new Sudoku(this);
     }
 
     /**
@@ -200,12 +496,12 @@ public class Sudoku {
 
         int xPosition = entry.getXPosition();
         int yPosition = entry.getYPosition();
-        if(board[xPosition][yPosition] != 0) {
+        if(getValue(xPosition, yPosition) != 0) {
             throw new IllegalArgumentException("The target square is already filled");
-        } else if (possibilityList[xPosition][yPosition].contains(entry.getValue())) {
-            board[xPosition][yPosition] = entry.getValue();
-            updatePossibilitySpace(xPosition, yPosition);
-            updatePossibilitySpaceAround(xPosition, yPosition);
+        }
+        ensureCandidates();
+        if (possibilityList[xPosition][yPosition].contains(entry.getValue())) {
+            place(xPosition, yPosition, entry.getValue());
             autoFillSudoku();
             return true;
         } else {
@@ -219,114 +515,422 @@ public class Sudoku {
      * @param entry object specifying the target location and target value
      */
     public void addValidEntry(SudokuEntry entry){
-        int xPosition = entry.getXPosition();
-        int yPosition = entry.getYPosition();
-        board[xPosition][yPosition] = entry.getValue();
-        updatePossibilitySpace(xPosition, yPosition);
-        updatePossibilitySpaceAround(xPosition, yPosition);
+        addValidEntry(entry.getXPosition(), entry.getYPosition(), entry.getValue());
+    }
+
+    /**
+     * Adds a value that is known to be valid to a specified location
+     * without allocating an entry
+     *
+     * @param xPosition x value of the target location
+     * @param yPosition y value of the target location
+     * @param value target value
+     */
+    public void addValidEntry(int xPosition, int yPosition, int value) {
+        place(xPosition, yPosition, value);
         autoFillSudoku();
     }
 
     /**
-     * Update the possibility space of squares in the same row, column or square
-     * as the given index
+     * Start recording every placement and candidate removal so that they
+     * can later be undone with undoTo. Used by solvers that search on a
+     * single board instead of cloning it for every branch.
      *
-     * @param xPosition x value for specifying index
-     * @param yPosition y value for specifying index
      */
-    protected void updatePossibilitySpaceAround(int xPosition, int yPosition) {
-        if(board[xPosition][yPosition] != 0) {
-            for (int i = 0; i < size; i++) {
-                possibilityList[xPosition][i].remove(board[xPosition][yPosition]);
-                possibilityList[i][yPosition].remove(board[xPosition][yPosition]);
-            }
+    public void beginTrail() {
+        ensureCandidates();
+        if(trail == null) {
+            trail = new int[Math.max(64, geometry.getCellCount())];
+        }
+        trailSize = 0;
+    }
 
-            int p = (int)(((int)(xPosition/Math.sqrt(size))) * Math.sqrt(size));
-            int q = (int)(((int)(yPosition/Math.sqrt(size))) * Math.sqrt(size));
+    /**
+     * Stop recording changes and release the trail
+     *
+     */
+    public void endTrail() {
+        trail = null;
+        trailSize = 0;
+    }
 
-            for (int i = p; i < p + Math.sqrt(size); i++) {
-                for (int j = q; j < q + Math.sqrt(size); j++) {
-                    possibilityList[i][j].remove(board[xPosition][yPosition]);
-                }
+    /**
+     * Current position of the trail, to be passed to undoTo later
+     *
+     * @return Number of changes recorded so far
+     */
+    public int trailMark() {
+        return trailSize;
+    }
+
+    /**
+     * Number of values autoFillSudoku has placed on this board since it
+     * was created. Undoing the trail does not lower it.
+     *
+     * @return Number of forced placements
+     */
+    long getPropagationCount() {
+        return propagationCount;
+    }
+
+    /**
+     * Undo every change recorded since the given mark, restoring the
+     * board, occupancy masks and possibility spaces to their state at
+     * that point. Marks are only taken on solvable boards, so the board
+     * is solvable again afterwards.
+     *
+     * @param mark Position returned by trailMark
+     */
+    public void undoTo(int mark) {
+        int size = geometry.getSize();
+        while (trailSize > mark) {
+            int entry = trail[--trailSize];
+            int value = (entry >>> 1) % (size + 1);
+            int cell = (entry >>> 1) / (size + 1);
+            int xPosition = geometry.rowOf(cell);
+            int yPosition = geometry.columnOf(cell);
+            if((entry & 1) == ASSIGNMENT) {
+                setValue(cell, 0);
+                vacate(xPosition, yPosition, value);
+            } else {
+                possibilityList[xPosition][yPosition].restore(value);
             }
         }
+        solvable = true;
+    }
+
+    /**
+     * Append a change to the trail
+     *
+     * @param cell Cell index of the change
+     * @param value Value placed or removed
+     * @param kind ASSIGNMENT or ELIMINATION
+     */
+    private void record(int cell, int value, int kind) {
+        if(trailSize == trail.length) {
+            trail = Arrays.copyOf(trail, trail.length * 2);
+        }
+        trail[trailSize++] = ((cell * (geometry.getSize() + 1) + value) << 1) | kind;
     }
 
     /**
-     * Update the possibility space of a given index
+     * Place a value on an empty square and remove it from the possibility
+     * spaces of every peer
      *
      * @param xPosition x value for specifying index
      * @param yPosition y value for specifying index
+     * @param value Value to be placed
      */
-    protected void updatePossibilitySpace(int xPosition, int yPosition) {
-        //Return if location is already filled
-        if(board[xPosition][yPosition] != 0) {
-            possibilityList[xPosition][yPosition] = new PossibilitySpace();
-        } else {
-            List<Integer> intList = new ArrayList<>(size);
-            for (int i = 1; i <= size; i++) {
-                intList.add(i);
-            }
+    protected void place(int xPosition, int yPosition, int value) {
+        ensureCandidates();
+        int cell = geometry.cellIndex(xPosition, yPosition);
+        if(trail != null) record(cell, value, ASSIGNMENT);
+        setValue(cell, value);
+        updatePossibilitySpace(xPosition, yPosition);
+        updatePossibilitySpaceAround(xPosition, yPosition);
+    }
+
+    /**
+     * Whether the occupancy masks and possibility spaces are built
+     *
+     * @return Whether the candidates are available without a rebuild
+     */
+    protected final boolean hasCandidates() {
+        return possibilityList != null;
+    }
+
+    /**
+     * Build the occupancy masks and possibility spaces from the squares
+     * if they are not built yet. No square is filled.
+     *
+     */
+    protected final void ensureCandidates() {
+        if(possibilityList == null) {
+            initPossibilitySpaces();
+            updatePossibilitySpace();
+            clearQueues();
+        }
+    }
+
+    /**
+     * Drop the occupancy masks, possibility spaces and trail, for
+     * subclasses that change squares directly with setValue. They are
+     * built again from the squares when next needed.
+     *
+     */
+    protected final void discardCandidates() {
+        possibilityList = null;
+        rowOccupancy = null;
+        columnOccupancy = null;
+        boxOccupancy = null;
+        trail = null;
+        trailSize = 0;
+    }
 
-            for (int i = 0; i < size; i++) {
-                intList.remove((Integer)board[xPosition][i]);
-                intList.remove((Integer)board[i][yPosition]);
+    /**
+     * Allocate the possibility spaces and occupancy masks once so that
+     * later updates never allocate
+     *
+     */
+    private void initPossibilitySpaces() {
+        int size = geometry.getSize();
+        possibilityList = new PossibilitySpace[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                possibilityList[i][j] = new PossibilitySpace(geometry.cellIndex(i, j));
             }
+        }
+        int words = geometry.getWordCount();
+        rowOccupancy = new long[size][words];
+        columnOccupancy = new long[size][words];
+        boxOccupancy = new long[size][words];
 
-            int p = (int)(((int)(xPosition/Math.sqrt(size))) * Math.sqrt(size));
-            int q = (int)(((int)(yPosition/Math.sqrt(size))) * Math.sqrt(size));
+        cellQueue = new int[geometry.getCellCount()];
+        cellQueued = new boolean[geometry.getCellCount()];
+        unitQueue = new int[3 * size];
+        unitQueued = new boolean[3 * size];
+    }
+
+    /**
+     * Queue a square whose possibility space changed, together with its
+     * row, column and box, to be examined by the next autoFillSudoku
+     *
+     * @param cell Cell index of the square
+     */
+    private void enqueue(int cell) {
+        if(!cellQueued[cell]) {
+            cellQueued[cell] = true;
+            cellQueue[(cellQueueHead + cellQueueSize++) % cellQueue.length] = cell;
+        }
+        int size = geometry.getSize();
+        enqueueUnit(geometry.rowOf(cell));
+        enqueueUnit(size + geometry.columnOf(cell));
+        enqueueUnit(2 * size + geometry.boxOf(cell));
+    }
 
+    /**
+     * Queue a unit, numbered rows first, then columns, then boxes
+     *
+     * @param unit Index of the unit
+     */
+    private void enqueueUnit(int unit) {
+        if(!unitQueued[unit]) {
+            unitQueued[unit] = true;
+            unitQueue[(unitQueueHead + unitQueueSize++) % unitQueue.length] = unit;
+        }
+    }
 
-            for (int i = p; i < p + Math.sqrt(size); i++) {
-                for (int j = q; j < q + Math.sqrt(size); j++) {
-                    intList.remove((Integer)board[i][j]);
-                }
+    /**
+     * Drop every queued square and unit
+     *
+     */
+    private void clearQueues() {
+        while (cellQueueSize > 0) {
+            cellQueued[cellQueue[cellQueueHead]] = false;
+            cellQueueHead = (cellQueueHead + 1) % cellQueue.length;
+            cellQueueSize--;
+        }
+        while (unitQueueSize > 0) {
+            unitQueued[unitQueue[unitQueueHead]] = false;
+            unitQueueHead = (unitQueueHead + 1) % unitQueue.length;
+            unitQueueSize--;
+        }
+    }
+
+    /**
+     * Mark a value as used in the row, column and box of the given index
+     *
+     * @param xPosition x value for specifying index
+     * @param yPosition y value for specifying index
+     * @param value Value placed at the index
+     */
+    private void occupy(int xPosition, int yPosition, int value) {
+        int word = (value - 1) >>> 6;
+        long bit = 1L << (value - 1);
+        rowOccupancy[xPosition][word] |= bit;
+        columnOccupancy[yPosition][word] |= bit;
+        boxOccupancy[geometry.boxOf(xPosition, yPosition)][word] |= bit;
+    }
+
+    /**
+     * Mark a value as no longer used in the row, column and box of the given index
+     *
+     * @param xPosition x value for specifying index
+     * @param yPosition y value for specifying index
+     * @param value Value removed from the index
+     */
+    private void vacate(int xPosition, int yPosition, int value) {
+        int word = (value - 1) >>> 6;
+        long bit = ~(1L << (value - 1));
+        rowOccupancy[xPosition][word] &= bit;
+        columnOccupancy[yPosition][word] &= bit;
+        boxOccupancy[geometry.boxOf(xPosition, yPosition)][word] &= bit;
+    }
+
+    /**
+     * Update the possibility space of squares in the same row, column or square
+     * as the given index
+     *
+     * @param xPosition x value for specifying index
+     * @param yPosition y value for specifying index
+     */
+    protected void updatePossibilitySpaceAround(int xPosition, int yPosition) {
+        ensureCandidates();
+        int value = getValue(xPosition, yPosition);
+        if(value != 0) {
+            occupy(xPosition, yPosition, value);
+            for (int peer : geometry.peers(geometry.cellIndex(xPosition, yPosition))) {
+                possibilityList[geometry.rowOf(peer)][geometry.columnOf(peer)].remove(value);
             }
+        }
+    }
 
-            possibilityList[xPosition][yPosition] = new PossibilitySpace(intList);
+    /**
+     * Update the possibility space of a given index from the
+     * occupancy masks of its row, column and box
+     *
+     * @param xPosition x value for specifying index
+     * @param yPosition y value for specifying index
+     */
+    protected void updatePossibilitySpace(int xPosition, int yPosition) {
+        ensureCandidates();
+        if(getValue(xPosition, yPosition) != 0) {
+            possibilityList[xPosition][yPosition].clear();
+        } else {
+            possibilityList[xPosition][yPosition].setFree(rowOccupancy[xPosition],
+                    columnOccupancy[yPosition], boxOccupancy[geometry.boxOf(xPosition, yPosition)]);
         }
     }
 
     /**
-     * Update the possibility space of all square on the board
+     * Rebuild the occupancy masks and the possibility space of all
+     * squares on the board
      *
      */
     private void updatePossibilitySpace() {
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
+        for (int i = 0; i < geometry.getSize(); i++) {
+            Arrays.fill(rowOccupancy[i], 0L);
+            Arrays.fill(columnOccupancy[i], 0L);
+            Arrays.fill(boxOccupancy[i], 0L);
+        }
+        for (int i = 0; i < geometry.getSize(); i++) {
+            for (int j = 0; j < geometry.getSize(); j++) {
+                int value = getValue(i, j);
+                if(value != 0) {
+                    occupy(i, j, value);
+                }
+            }
+        }
+        for (int i = 0; i < geometry.getSize(); i++) {
+            for (int j = 0; j < geometry.getSize(); j++) {
                 updatePossibilitySpace(i, j);
+                enqueue(geometry.cellIndex(i, j));
             }
         }
 
         checkSolvable();
     }
 
+    /**
+     * Fill every square that is forced, either because it has a single
+     * possible value (naked single) or because it is the only place left
+     * for a value in its row, column or box (hidden single). Only squares
+     * and units whose possibility spaces changed since the last call are
+     * examined, and the board is marked unsolvable as soon as a square or
+     * a value runs out of places.
+     *
+     */
     public void autoFillSudoku(){
+        ensureCandidates();
+        while (solvable && (cellQueueSize > 0 || unitQueueSize > 0)) {
+            if(cellQueueSize > 0) {
+                int cell = cellQueue[cellQueueHead];
+                cellQueueHead = (cellQueueHead + 1) % cellQueue.length;
+                cellQueueSize--;
+                cellQueued[cell] = false;
+
+                int i = geometry.rowOf(cell);
+                int j = geometry.columnOf(cell);
+                if(getValue(cell) == 0) {
+                    int count = possibilityList[i][j].size();
+                    if(count == 0) {
+                        solvable = false;
+                    } else if(count == 1) {
+                        place(i, j, possibilityList[i][j].getNext());
+                        propagationCount++;
+                    }
+                }
+            } else {
+                int unit = unitQueue[unitQueueHead];
+                unitQueueHead = (unitQueueHead + 1) % unitQueue.length;
+                unitQueueSize--;
+                unitQueued[unit] = false;
+                fillHiddenSingles(unit);
+            }
+        }
+        clearQueues();
+    }
+
+    /**
+     * Place every value that has exactly one possible square left in a unit
+     * and mark the board unsolvable if a value has none
+     *
+     * @param unit Index of the unit, rows first, then columns, then boxes
+     */
+    private void fillHiddenSingles(int unit) {
+        int size = geometry.getSize();
+        int[] cells;
+        long[] occupancy;
+        if(unit < size) {
+            cells = geometry.rowCells(unit);
+            occupancy = rowOccupancy[unit];
+        } else if(unit < 2 * size) {
+            cells = geometry.columnCells(unit - size);
+            occupancy = columnOccupancy[unit - size];
+        } else {
+            cells = geometry.boxCells(unit - 2 * size);
+            occupancy = boxOccupancy[unit - 2 * size];
+        }
 
-        boolean changeMade;
-        do{
-            changeMade = false;
-            for (int i = 0; i < size; i++) {
-                for(int j = 0; j < size; j++){
-                    if(possibilityList[i][j].size() == 1) {
-                        board[i][j] = possibilityList[i][j].getNext();
-                        updatePossibilitySpace(i,j);
-                        updatePossibilitySpaceAround(i,j);
-                        changeMade = true;
+        for (int word = 0; word < occupancy.length; word++) {
+            long seenOnce = 0L;
+            long seenTwice = 0L;
+            for (int cell : cells) {
+                if(getValue(cell) == 0) {
+                    long bits = possibilityList[geometry.rowOf(cell)][geometry.columnOf(cell)].possibilityList[word];
+                    seenTwice |= seenOnce & bits;
+                    seenOnce |= bits;
+                }
+            }
+            if((fullWord(size, word) & ~(occupancy[word] | seenOnce)) != 0) {
+                solvable = false;
+                return;
+            }
+
+            long hidden = seenOnce & ~seenTwice & ~occupancy[word];
+            while (hidden != 0) {
+                long bit = hidden & -hidden;
+                hidden ^= bit;
+                int value = (word << 6) + Long.numberOfTrailingZeros(bit) + 1;
+                for (int cell : cells) {
+                    int i = geometry.rowOf(cell);
+                    int j = geometry.columnOf(cell);
+                    if(getValue(cell) == 0 && possibilityList[i][j].contains(value)) {
+                        place(i, j, value);
+                        propagationCount++;
                         break;
                     }
                 }
-                if(changeMade) break;
             }
-        }while(changeMade);
-        checkSolvable();
+        }
     }
 
     public void checkSolvable() {
+        ensureCandidates();
         solvable  = true;
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if(board[i][j] == 0 && possibilityList[i][j].size() == 0) {
+        for (int i = 0; i < geometry.getSize(); i++) {
+            for (int j = 0; j < geometry.getSize(); j++) {
+                if(getValue(i, j) == 0 && possibilityList[i][j].size() == 0) {
                     solvable = false;
                 }
             }
@@ -343,54 +947,124 @@ public class Sudoku {
      * @return  True or False depending on if the desired entry is empty
      */
     public boolean isEmpty(int i, int j) {
-        return board[i][j] == 0;
+        return getValue(i, j) == 0;
     }
 
     public Iterable<Integer> getPossibilitySpaceIterable(int xPosition, int yPosition) {
+        ensureCandidates();
         return ()-> possibilityList[xPosition][yPosition].iterator();
     }
 
+    /**
+     * Number of values that a square can still take
+     *
+     * @param xPosition x value of the square
+     * @param yPosition y value of the square
+     * @return Size of the possibility space of the square
+     */
+    public int possibilityCount(int xPosition, int yPosition) {
+        ensureCandidates();
+        return possibilityList[xPosition][yPosition].size();
+    }
+
+    /**
+     * Check whether a square can still take the given value
+     *
+     * @param xPosition x value of the square
+     * @param yPosition y value of the square
+     * @param value Value to look for
+     * @return Whether the value is in the possibility space of the square
+     */
+    public boolean isPossibleValue(int xPosition, int yPosition, int value) {
+        ensureCandidates();
+        return possibilityList[xPosition][yPosition].contains(value);
+    }
+
+    /**
+     * Get the smallest possible value of a square that is larger than
+     * the given value, without allocating an iterator
+     *
+     * @param xPosition x value of the square
+     * @param yPosition y value of the square
+     * @param after Value to search past, 0 to start from the beginning
+     * @return Next possible value or 0 if there is none
+     */
+    public int nextPossibleValue(int xPosition, int yPosition, int after) {
+        ensureCandidates();
+        return possibilityList[xPosition][yPosition].nextAfter(after);
+    }
+
+    /**
+     * Get one word of the bitset of possible values of a square, with
+     * value v in bit (v - 1) % 64 of word (v - 1) / 64
+     *
+     * @param xPosition x value of the square
+     * @param yPosition y value of the square
+     * @param word Index of the word
+     * @return Bits of the possible values in that word
+     */
+    public long candidateWord(int xPosition, int yPosition, int word) {
+        ensureCandidates();
+        return possibilityList[xPosition][yPosition].possibilityList[word];
+    }
+
+    /**
+     * Remove a possible value of a square that a deduction has ruled
+     * out. The removal is recorded to the trail and the square is queued,
+     * so autoFillSudoku should be called afterwards to propagate it.
+     *
+     * @param xPosition x value of the square
+     * @param yPosition y value of the square
+     * @param value Value to be removed
+     * @return Whether the value was still possible
+     */
+    public boolean eliminate(int xPosition, int yPosition, int value) {
+        ensureCandidates();
+        PossibilitySpace space = possibilityList[xPosition][yPosition];
+        if(!space.contains(value)) return false;
+        space.remove(value);
+        return true;
+    }
+
     @Override
     public String toString() {
-        String outString = "";
-        String tmp = "%" + Integer.toString((int)Math.log10(size) + 1) + "d|";
+        int size = geometry.getSize();
+        int width = Integer.toString(size).length();
+        // Every row is a bar, size padded values each followed by a bar, and a newline
+        StringBuilder out = new StringBuilder(size * (size * (width + 1) + 2));
         for (int i = 0; i < size; i++) {
-            outString += "|";
+            out.append('|');
             for (int j = 0; j < size; j++) {
-                outString += String.format(tmp, board[i][j]);
+                String value = Integer.toString(getValue(i, j));
+                for (int pad = value.length(); pad < width; pad++) {
+                    out.append(' ');
+                }
+                out.append(value).append('|');
             }
-            outString += "\n";
-
+            out.append('\n');
         }
-
-        return outString;
+        return out.toString();
     }
 
     @Override
     public boolean equals(Object other) {
         if (this == other) return true;
         else if(!(other instanceof  Sudoku)) return false;
-        else {
-            boolean isEqual = true;
-            int[][] otherBoard = ((Sudoku) other).getBoard();
-            for (int i = 0; i < size; i++) {
-                for (int j = 0; j < size; j++) {
-                    if(this.board[i][j] != otherBoard[i][j]) isEqual = false;
-                }
-            }
-            return isEqual;
-        }
+        else if(((Sudoku) other).geometry != geometry) return false;
+        else if(cells != null) return Arrays.equals(cells, ((Sudoku) other).cells);
+        else return Arrays.equals(wideCells, ((Sudoku) other).wideCells);
     }
 
     public boolean isSolvable() {
+        ensureCandidates();
         return solvable;
     }
 
     public boolean isSolved() {
         if(isSolvable()) {
-            for (int i = 0; i < size; i++) {
-                for (int j = 0; j < size; j++ ) {
-                    if(board[i][j] == 0) return false;
+            for (int i = 0; i < geometry.getSize(); i++) {
+                for (int j = 0; j < geometry.getSize(); j++ ) {
+                    if(getValue(i, j) == 0) return false;
                 }
             }
 
@@ -403,6 +1077,7 @@ public class Sudoku {
 
     //Test Methods
     public int possibilitySpaceSize(int i, int j) {
+        ensureCandidates();
         for (int x : possibilityList[i][j]) {
             System.out.println(x);
         }
@@ -0,0 +1,180 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SudokuCnf encodes a puzzle as a formula in conjunctive normal form.
+ * Variable (cell, value) is true when the square holds the value. Every
+ * cell takes at least one and at most one value, every value appears at
+ * least once and at most once in each row, column and box, and each clue
+ * is a unit clause.
+ *
+ * The values the clues already decide are left out: a constraint a clue
+ * satisfies is dropped, and a variable a clue rules out becomes a
+ * negative unit clause instead of appearing in the constraints.
+ * At-most-one constraints are pairwise for a few variables and a
+ * sequential counter over extra variables for more, so the formula grows
+ * linearly with the number of open variables.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+class SudokuCnf {
+    private static final int PAIRWISE_LIMIT = 8;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = -1;
+
+    private final SudokuGeometry geometry;
+    private final List<int[]> clauses = new ArrayList<>();
+    private final byte[] known;
+    private int variableCount;
+
+    /**
+     * Encode a puzzle given by its clues
+     *
+     * @param geometry Shape of the board
+     * @param clues Fixed entries of the puzzle
+     */
+    SudokuCnf(SudokuGeometry geometry, List<SudokuEntry> clues) {
+        this.geometry = geometry;
+        int size = geometry.getSize();
+        int cellCount = geometry.getCellCount();
+        variableCount = cellCount * size;
+        known = new byte[variableCount + 1];
+
+        boolean consistent = true;
+        for (SudokuEntry clue : clues) {
+            int value = clue.getValue();
+            if(value < 1 || value > size) {
+                consistent = false;
+                continue;
+            }
+            int var = variable(geometry.cellIndex(clue.getXPosition(), clue.getYPosition()), value);
+            clauses.add(new int[] {var});
+            known[var] = TRUE;
+        }
+        for (SudokuEntry clue : clues) {
+            int value = clue.getValue();
+            if(value < 1 || value > size) continue;
+            int cell = geometry.cellIndex(clue.getXPosition(), clue.getYPosition());
+            for (int other = 1; other <= size; other++) {
+                if(other != value) consistent &= exclude(variable(cell, other));
+            }
+            for (int peer : geometry.peers(cell)) {
+                consistent &= exclude(variable(peer, value));
+            }
+        }
+        if(!consistent) {
+            clauses.add(new int[0]);
+            return;
+        }
+        for (int var = 1; var < known.length; var++) {
+            if(known[var] == FALSE) clauses.add(new int[] {-var});
+        }
+
+        int[] group = new int[size];
+        for (int cell = 0; cell < cellCount; cell++) {
+            for (int value = 1; value <= size; value++) {
+                group[value - 1] = variable(cell, value);
+            }
+            exactlyOne(group);
+        }
+        for (int unit = 0; unit < size; unit++) {
+            int[][] units = {geometry.rowCells(unit), geometry.columnCells(unit), geometry.boxCells(unit)};
+            for (int[] cells : units) {
+                for (int value = 1; value <= size; value++) {
+                    for (int k = 0; k < size; k++) {
+                        group[k] = variable(cells[k], value);
+                    }
+                    exactlyOne(group);
+                }
+            }
+        }
+    }
+
+    /**
+     * Variable that is true when a square holds a value
+     *
+     * @param cell Cell index of the square
+     * @param value Value from 1 to size
+     * @return DIMACS numbered variable
+     */
+    int variable(int cell, int value) {
+        return cell * geometry.getSize() + value;
+    }
+
+    int getVariableCount() {
+        return variableCount;
+    }
+
+    List<int[]> getClauses() {
+        return clauses;
+    }
+
+    /**
+     * Read the board out of a satisfying assignment
+     *
+     * @param solver Solver that found the assignment
+     * @return Array of the solved board
+     */
+    int[][] decode(CdclSolver solver) {
+        int size = geometry.getSize();
+        int[][] board = new int[size][size];
+        for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+            for (int value = 1; value <= size; value++) {
+                int var = variable(cell, value);
+                if(known[var] == TRUE || (known[var] == 0 && solver.value(var))) {
+                    board[geometry.rowOf(cell)][geometry.columnOf(cell)] = value;
+                }
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Mark a variable false because of a clue
+     *
+     * @return False if another clue needs it true
+     */
+    private boolean exclude(int var) {
+        if(known[var] == TRUE) return false;
+        known[var] = FALSE;
+        return true;
+    }
+
+    /**
+     * Add the clauses for exactly one of a group of variables being true,
+     * unless a clue already makes one of them true
+     */
+    private void exactlyOne(int[] group) {
+        int[] open = new int[group.length];
+        int count = 0;
+        for (int var : group) {
+            if(known[var] == TRUE) return;
+            if(known[var] == 0) open[count++] = var;
+        }
+        int[] atLeastOne = new int[count];
+        System.arraycopy(open, 0, atLeastOne, 0, count);
+        clauses.add(atLeastOne);
+        if(count <= PAIRWISE_LIMIT) {
+            for (int a = 0; a < count; a++) {
+                for (int b = a + 1; b < count; b++) {
+                    clauses.add(new int[] {-open[a], -open[b]});
+                }
+            }
+        } else {
+            // Counter variable k is true when one of the first k + 1 variables is
+            int first = variableCount + 1;
+            variableCount += count - 1;
+            for (int k = 0; k < count - 1; k++) {
+                clauses.add(new int[] {-open[k], first + k});
+                if(k > 0) {
+                    clauses.add(new int[] {-(first + k - 1), first + k});
+                    clauses.add(new int[] {-open[k], -(first + k - 1)});
+                }
+            }
+            clauses.add(new int[] {-open[count - 1], -(first + count - 2)});
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package src;
+
+/**
+ * Conversion between Sudoku boards and single-line text. Boards up to
+ * 35x35 use one character per square: '1'-'9' then 'A'-'Z' for 10 to 35,
+ * and '.' or '0' for an empty square. Any size can also be written as
+ * values separated by commas or whitespace, with 0 for an empty square.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public abstract class SudokuFormat {
+    private static final int MAX_COMPACT_SIZE = 35;
+
+    /**
+     * Parse a board from a single line in either format
+     *
+     * @param line Text of the board
+     * @return Array of the board, 0 for empty squares
+     */
+    public static int[][] parse(CharSequence line) throws IllegalArgumentException {
+        String text = line.toString().trim();
+        if(text.indexOf(',') >= 0 || text.indexOf(' ') >= 0 || text.indexOf('\t') >= 0) {
+            return parseSeparated(text);
+        }
+
+        int size = boardSize(text.length());
+        int[][] board = new int[size][size];
+        for (int k = 0; k < text.length(); k++) {
+            char c = text.charAt(k);
+            int value = c == '.' ? 0 : Character.digit(c, 36);
+            if(value < 0 || value > size) {
+                throw new IllegalArgumentException("Invalid square '" + c + "' at position " + k);
+            }
+            board[k / size][k % size] = value;
+        }
+        return board;
+    }
+
+    private static int[][] parseSeparated(String text) throws IllegalArgumentException {
+        String[] tokens = text.split("[,\\s]+");
+        int size = boardSize(tokens.length);
+        int[][] board = new int[size][size];
+        for (int k = 0; k < tokens.length; k++) {
+            int value;
+            try {
+                value = tokens[k].equals(".") ? 0 : Integer.parseInt(tokens[k]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid square '" + tokens[k] + "' at position " + k);
+            }
+            if(value < 0 || value > size) {
+                throw new IllegalArgumentException("Invalid square '" + tokens[k] + "' at position " + k);
+            }
+            board[k / size][k % size] = value;
+        }
+        return board;
+    }
+
+    /**
+     * Size of the board with the given number of squares
+     */
+    private static int boardSize(int squares) throws IllegalArgumentException {
+        int size = (int)Math.round(Math.sqrt(squares));
+        int boxWidth = (int)Math.round(Math.sqrt(size));
+        if(squares == 0 || size * size != squares || boxWidth * boxWidth != size) {
+            throw new IllegalArgumentException("A board cannot have " + squares + " squares");
+        }
+        return size;
+    }
+
+    /**
+     * Write a board as a single line, compact when the size allows it
+     *
+     * @param board Array of the board, 0 for empty squares
+     * @return Text of the board
+     */
+    public static String format(int[][] board) {
+        int size = board.length;
+        StringBuilder out = new StringBuilder(size * size * (size > MAX_COMPACT_SIZE ? 3 : 1));
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int value = board[i][j];
+                if(size <= MAX_COMPACT_SIZE) {
+                    out.append(value == 0 ? '.' : Character.toUpperCase(Character.forDigit(value, 36)));
+                } else {
+                    if(i != 0 || j != 0) out.append(',');
+                    out.append(value);
+                }
+            }
+        }
+        return out.toString();
+    }
+}
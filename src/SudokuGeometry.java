@@ -0,0 +1,245 @@
+package src;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SudokuGeometry holds the immutable shape of a Sudoku board: its size,
+ * the width of its boxes and precomputed lookup tables for boxes, units
+ * and peers. Instances are shared between every board of the same size.
+ *
+ * @author Chidozie Onyeze
+ * @version 1.0
+ */
+public final class SudokuGeometry {
+    private static final Map<Integer, SudokuGeometry> GEOMETRIES = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final int boxWidth;
+    private final int cellCount;
+    private final int wordCount;
+    private final int[] rowOf;
+    private final int[] columnOf;
+    private final int[] boxOf;
+    private final int[] boxOriginRow;
+    private final int[] boxOriginColumn;
+    private final int[][] rowCells;
+    private final int[][] columnCells;
+    private final int[][] boxCells;
+    private final int[][] peers;
+
+    /**
+     * Get the geometry for a board with the given number of rows
+     *
+     * @param size Number of rows (and columns) of the board, must be a perfect square
+     * @return Shared geometry for that size
+     */
+    public static SudokuGeometry forSize(int size) throws IllegalArgumentException {
+        SudokuGeometry geometry = GEOMETRIES.get(size);
+        if(geometry == null) {
+            geometry = GEOMETRIES.computeIfAbsent(size, SudokuGeometry::new);
+        }
+        return geometry;
+    }
+
+    /**
+     * Get the geometry for a board whose boxes are the given width
+     *
+     * @param boxWidth The square root of the desired size of the Sudoku
+     * @return Shared geometry for that box width
+     */
+    public static SudokuGeometry forBoxWidth(int boxWidth) throws IllegalArgumentException {
+        return forSize(boxWidth * boxWidth);
+    }
+
+    private SudokuGeometry(int size) throws IllegalArgumentException {
+        int boxWidth = (int)Math.round(Math.sqrt(size));
+        if(size < 1 || boxWidth * boxWidth != size) {
+            throw new IllegalArgumentException("Size must be a positive perfect square");
+        }
+        this.size = size;
+        this.boxWidth = boxWidth;
+        this.cellCount = size * size;
+        this.wordCount = Sudoku.wordCount(size);
+
+        rowOf = new int[cellCount];
+        columnOf = new int[cellCount];
+        boxOf = new int[cellCount];
+        boxOriginRow = new int[size];
+        boxOriginColumn = new int[size];
+        rowCells = new int[size][size];
+        columnCells = new int[size][size];
+        boxCells = new int[size][size];
+
+        int[] boxFill = new int[size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int cell = i * size + j;
+                int box = (i / boxWidth) * boxWidth + j / boxWidth;
+                rowOf[cell] = i;
+                columnOf[cell] = j;
+                boxOf[cell] = box;
+                rowCells[i][j] = cell;
+                columnCells[j][i] = cell;
+                boxCells[box][boxFill[box]++] = cell;
+            }
+        }
+        for (int box = 0; box < size; box++) {
+            boxOriginRow[box] = (box / boxWidth) * boxWidth;
+            boxOriginColumn[box] = (box % boxWidth) * boxWidth;
+        }
+
+        int peerCount = 2 * (size - 1) + (boxWidth - 1) * (boxWidth - 1);
+        peers = new int[cellCount][];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int[] cellPeers = new int[peerCount];
+            int k = 0;
+            for (int other : rowCells[rowOf[cell]]) {
+                if(other != cell) cellPeers[k++] = other;
+            }
+            for (int other : columnCells[columnOf[cell]]) {
+                if(other != cell) cellPeers[k++] = other;
+            }
+            for (int other : boxCells[boxOf[cell]]) {
+                if(rowOf[other] != rowOf[cell] && columnOf[other] != columnOf[cell]) cellPeers[k++] = other;
+            }
+            peers[cell] = cellPeers;
+        }
+    }
+
+    /**
+     * Number of rows (and columns and boxes) on the board
+     *
+     * @return Size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Number of rows (and columns) in a single box
+     *
+     * @return Width of a box
+     */
+    public int getBoxWidth() {
+        return boxWidth;
+    }
+
+    /**
+     * Number of squares on the board
+     *
+     * @return size * size
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Number of 64 bit words in a bitset holding one bit per value
+     *
+     * @return Words per bitset
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Cell index of a square in row-major order
+     *
+     * @param xPosition x value of the square
+     * @param yPosition y value of the square
+     * @return Cell index of the square
+     */
+    public int cellIndex(int xPosition, int yPosition) {
+        return xPosition * size + yPosition;
+    }
+
+    public int rowOf(int cell) {
+        return rowOf[cell];
+    }
+
+    public int columnOf(int cell) {
+        return columnOf[cell];
+    }
+
+    public int boxOf(int cell) {
+        return boxOf[cell];
+    }
+
+    /**
+     * Index of the box containing the given square
+     *
+     * @param xPosition x value of the square
+     * @param yPosition y value of the square
+     * @return Index of the box in row-major order
+     */
+    public int boxOf(int xPosition, int yPosition) {
+        return boxOf[xPosition * size + yPosition];
+    }
+
+    /**
+     * First row of the given box
+     *
+     * @param box Index of the box
+     * @return Row of the top left square of the box
+     */
+    public int boxOriginRow(int box) {
+        return boxOriginRow[box];
+    }
+
+    /**
+     * First column of the given box
+     *
+     * @param box Index of the box
+     * @return Column of the top left square of the box
+     */
+    public int boxOriginColumn(int box) {
+        return boxOriginColumn[box];
+    }
+
+    /**
+     * Cells of a row in order. The returned array is shared and must not be modified.
+     *
+     * @param row Index of the row
+     * @return Cell indices of the row
+     */
+    public int[] rowCells(int row) {
+        return rowCells[row];
+    }
+
+    /**
+     * Cells of a column in order. The returned array is shared and must not be modified.
+     *
+     * @param column Index of the column
+     * @return Cell indices of the column
+     */
+    public int[] columnCells(int column) {
+        return columnCells[column];
+    }
+
+    /**
+     * Cells of a box in row-major order. The returned array is shared and must not be modified.
+     *
+     * @param box Index of the box
+     * @return Cell indices of the box
+     */
+    public int[] boxCells(int box) {
+        return boxCells[box];
+    }
+
+    /**
+     * Every other cell sharing a row, column or box with the given cell,
+     * each listed once. The returned array is shared and must not be modified.
+     *
+     * @param cell Cell index
+     * @return Cell indices of the peers
+     */
+    public int[] peers(int cell) {
+        return peers[cell];
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size;
+    }
+}
@@ -1,8 +1,16 @@
 package src;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 public abstract class SudokuSolver {
+    /** Largest side length searched on the calling thread's stack */
+    private static final int CALLER_STACK_SIZE = 25;
+    /** Stack reserved per cell for the recursion of larger boards */
+    private static final long STACK_BYTES_PER_CELL = 1024;
 
     /**
      * Solver Sudoku method for utilizing the (DFS) sudoku
@@ -13,7 +21,7 @@ public abstract class SudokuSolver {
      */
     public static Sudoku SudokuSolver(List<SudokuEntry> fixedEntries) {
         Sudoku startingSudoku = new Sudoku(fixedEntries);
-        SolverOutput solverOutput =  SolveSudoku(startingSudoku);
+        SolverOutput solverOutput =  SolveSudoku(startingSudoku, new SolverOptions());
         return solverOutput.getSudoku();
     }
 
@@ -26,35 +34,227 @@ public abstract class SudokuSolver {
      */
     public static Sudoku SudokuSolver(int[][] sudoku) {
         Sudoku startingSudoku = new Sudoku(sudoku);
-        SolverOutput solverOutput =  SolveSudoku(startingSudoku);
+        SolverOutput solverOutput =  SolveSudoku(startingSudoku, new SolverOptions());
         return solverOutput.getSudoku();
     }
 
+    /**
+     * Solve a Sudoku with the given solver options
+     *
+     * @param fixedEntries List of fixed entried
+     * @param options Settings for the solve
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(List<SudokuEntry> fixedEntries, SolverOptions options) {
+        long start = System.nanoTime();
+        Sudoku startingSudoku = new Sudoku(fixedEntries);
+        return finish(SolveSudoku(startingSudoku, options, System.nanoTime() - start), options);
+    }
+
+    /**
+     * Solve a Sudoku with the given solver options
+     *
+     * @param sudoku array representing sudoku
+     * @param options Settings for the solve
+     * @return Output from the Solver
+     */
+    public static SolverOutput SolveSudoku(int[][] sudoku, SolverOptions options) {
+        long start = System.nanoTime();
+        Sudoku startingSudoku = new Sudoku(sudoku);
+        return finish(SolveSudoku(startingSudoku, options, System.nanoTime() - start), options);
+    }
+
+    private static SolverOutput finish(SolverOutput output, SolverOptions options) {
+        if(options.getListener() != null) options.getListener().onFinish(output);
+        return output;
+    }
+
+    /**
+     * Count the solutions of a Sudoku, stopping as soon as the limit is
+     * reached. With a limit of 2 this tells whether the solution is unique.
+     *
+     * @param sudoku array representing sudoku
+     * @param limit Largest number of solutions to look for
+     * @return Number of solutions and the solutions found
+     */
+    public static SolutionCount CountSolutions(int[][] sudoku, int limit) {
+        return CountSolutions(sudoku, limit, new SolverOptions()
+                .setVariableOrdering(SolverOptions.VariableOrdering.MRV));
+    }
+
+    /**
+     * Count the solutions of a Sudoku with the given solver options,
+     * stopping as soon as the limit is reached. The search mode of the
+     * options is ignored, counting always searches in place. A count
+     * stopped by the cancellation of the options is not completed and
+     * never reports a unique solution.
+     *
+     * @param sudoku array representing sudoku
+     * @param limit Largest number of solutions to look for
+     * @param options Settings for the search
+     * @return Number of solutions and the solutions found
+     */
+    public static SolutionCount CountSolutions(int[][] sudoku, int limit, SolverOptions options) {
+        if(limit < 1) {
+            throw new IllegalArgumentException("The limit must be at least 1");
+        }
+        Sudoku startingSudoku = new Sudoku(sudoku);
+        Search search = new Search(options);
+        List<Sudoku> solutions = new ArrayList<>();
+        deduce(startingSudoku, search);
+        if(startingSudoku.isSolvable()) {
+            withStackFor(startingSudoku, () -> {
+                startingSudoku.beginTrail();
+                CountInPlace(startingSudoku, search, solutions, limit);
+                startingSudoku.endTrail();
+                return null;
+            });
+        }
+        boolean limitReached = solutions.size() >= limit;
+        return new SolutionCount(solutions.size(), limitReached, limitReached || !search.stopped, solutions,
+                search.statistics.nodes);
+    }
+
+    /**
+     * Run a search on a stack deep enough for the board. The recursion
+     * goes one level per empty square, up to 4096 levels on a 64x64
+     * board, so boards larger than 25x25 are searched on a thread of
+     * their own with a stack sized by the number of cells; the caller
+     * waits for it to finish.
+     *
+     * @param sudoku Board the search runs on
+     * @param search Search to run
+     * @return Result of the search
+     */
+    private static <T> T withStackFor(Sudoku sudoku, Supplier<T> search) {
+        int size = sudoku.getGeometry().getSize();
+        if(size <= CALLER_STACK_SIZE) {
+            return search.get();
+        }
+        List<T> result = new ArrayList<>(1);
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.add(search.get());
+            } catch (RuntimeException | Error e) {
+                failure[0] = e;
+            }
+        }, "sudoku-search", STACK_BYTES_PER_CELL * size * size);
+        thread.start();
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+        if(failure[0] instanceof RuntimeException) throw (RuntimeException) failure[0];
+        if(failure[0] instanceof Error) throw (Error) failure[0];
+        return result.get(0);
+    }
+
+    /**
+     * State shared by every level of a single search
+     */
+    private static final class Search {
+        private final SolverOptions options;
+        private final Random rand;
+        private final BooleanSupplier cancellation;
+        private final SolverListener listener;
+        private final DeductionPipeline deductions;
+        private final SolverStatistics statistics = new SolverStatistics();
+        /** Set when a counting search stops early because it was cancelled */
+        private boolean stopped;
+
+        private Search(SolverOptions options) {
+            this.options = options;
+            this.rand = new Random(options.getSeed());
+            this.cancellation = options.getCancellation();
+            this.listener = options.getListener();
+            this.deductions = options.getDeductions();
+        }
+
+        private boolean isCancelled() {
+            return cancellation != null && cancellation.getAsBoolean();
+        }
+    }
+
+    /**
+     * Dispatch a prepared Sudoku to the search selected in the options
+     *
+     * @param sudoku Input Sudoku to solve
+     * @param options Settings for the solve
+     * @return Output from the Solver
+     */
+    static SolverOutput SolveSudoku(Sudoku sudoku, SolverOptions options) {
+        return SolveSudoku(sudoku, options, 0);
+    }
+
+    private static SolverOutput SolveSudoku(Sudoku sudoku, SolverOptions options, long setupNanos) {
+        if(options.getSearchMode() == SolverOptions.SearchMode.EXPLICIT_STACK) {
+            ResumableSearch resumable = new ResumableSearch(sudoku.getBoard(), options);
+            resumable.getStatistics().setupNanos += setupNanos;
+            return resumable.run(0, 0);
+        }
+        Search search = new Search(options);
+        search.statistics.setupNanos = setupNanos;
+        long start = System.nanoTime();
+        boolean solved;
+        Sudoku solution;
+        deduce(sudoku, search);
+        if(!sudoku.isSolvable()) {
+            solved = false;
+            solution = null;
+        } else if(options.getSearchMode() == SolverOptions.SearchMode.IN_PLACE) {
+            sudoku.beginTrail();
+            solved = withStackFor(sudoku, () -> SolveInPlace(sudoku, search));
+            sudoku.endTrail();
+            solution = solved ? sudoku : null;
+        } else {
+            SolverOutput solverOutput = withStackFor(sudoku, () -> SolveSudoku(sudoku, search));
+            solved = solverOutput.isSolved();
+            solution = solverOutput.getSudoku();
+        }
+        search.statistics.searchNanos = System.nanoTime() - start;
+        if(search.deductions != null) search.statistics.deductions(search.deductions).setSearchNeeded(search.statistics.nodes > 0);
+        return new SolverOutput(solved, solution, termination(solved, search), search.statistics);
+    }
+
+    private static SolverOutput.Termination termination(boolean solved, Search search) {
+        if(solved) return SolverOutput.Termination.SOLVED;
+        return search.isCancelled() ? SolverOutput.Termination.CANCELLED : SolverOutput.Termination.UNSOLVABLE;
+    }
+
     /**
      * Method that implements the algorithm
      *
      * @param sudoku Input Sudoku to solve
+     * @param search State of the running search
      * @return Output from the Solver
      */
-    private static SolverOutput SolveSudoku(Sudoku sudoku) {
-        for(int i = 0; i < Sudoku.size; i++) {
-            for(int j = 0; j < Sudoku.size; j++) {
-                if(sudoku.isEmpty(i,j)) {
-                    for (int possibleValue : sudoku.getPossibilitySpaceIterable(i,j)) {
-                        Sudoku newSudoku = sudoku.cloneSudoku();
-                        newSudoku.addValidEntry(new SudokuEntry(i,j,possibleValue));
-                        if(newSudoku.isSolved()) {
-                            return new SolverOutput(true, newSudoku);
-                        } else if(newSudoku.isSolvable()) {
-                            SolverOutput possibleSolve = SolveSudoku(newSudoku);
-                            if(possibleSolve.isSolved()) {
-                                return possibleSolve;
-                            }
-                        }
+    private static SolverOutput SolveSudoku(Sudoku sudoku, Search search) {
+        int cell = selectSquare(sudoku, search);
+        if(cell >= 0) {
+            SudokuGeometry geometry = sudoku.getGeometry();
+            int i = geometry.rowOf(cell);
+            int j = geometry.columnOf(cell);
+            for (int possibleValue : orderValues(sudoku, i, j, search)) {
+                if(search.isCancelled()) break;
+                Sudoku newSudoku = sudoku.cloneSudoku();
+                guess(newSudoku, i, j, possibleValue, search);
+                if(newSudoku.isSolved()) {
+                    return new SolverOutput(true, newSudoku);
+                } else if(newSudoku.isSolvable()) {
+                    SolverOutput possibleSolve = SolveSudoku(newSudoku, search);
+                    if(possibleSolve.isSolved()) {
+                        return possibleSolve;
                     }
-                    return new SolverOutput(false);
                 }
+                backtrack(i, j, possibleValue, search);
             }
+            return new SolverOutput(false);
         }
         if(sudoku.isSolved()) {
             return new SolverOutput(true, sudoku);
@@ -63,4 +263,257 @@ public abstract class SudokuSolver {
         }
     }
 
+    /**
+     * Method that implements the algorithm on a single board, undoing
+     * each guess from the board's trail instead of cloning the board
+     *
+     * @param sudoku Input Sudoku to solve, recording to its trail
+     * @param search State of the running search
+     * @return Whether the board was solved, in which case it holds the solution
+     */
+    private static boolean SolveInPlace(Sudoku sudoku, Search search) {
+        int cell = selectSquare(sudoku, search);
+        if(cell < 0) {
+            return sudoku.isSolvable();
+        }
+        SudokuGeometry geometry = sudoku.getGeometry();
+        int i = geometry.rowOf(cell);
+        int j = geometry.columnOf(cell);
+        int mark = sudoku.trailMark();
+        if(search.options.getValueOrdering() == SolverOptions.ValueOrdering.ASCENDING) {
+            for (int value = sudoku.nextPossibleValue(i, j, 0); value != 0;
+                 value = sudoku.nextPossibleValue(i, j, value)) {
+                if(tryValue(sudoku, i, j, value, mark, search)) return true;
+            }
+        } else {
+            for (int value : orderValues(sudoku, i, j, search)) {
+                if(tryValue(sudoku, i, j, value, mark, search)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Enumerate the solutions below the current board, undoing every guess
+     * so that the search carries on past each solution
+     *
+     * @param sudoku Input Sudoku to search, recording to its trail
+     * @param search State of the running search
+     * @param solutions Solutions found so far
+     * @param limit Number of solutions at which to stop
+     * @return Whether the limit was reached or the search was cancelled
+     */
+    private static boolean CountInPlace(Sudoku sudoku, Search search, List<Sudoku> solutions, int limit) {
+        int cell = selectSquare(sudoku, search);
+        if(cell < 0) {
+            solutions.add(sudoku.cloneSudoku());
+            return solutions.size() >= limit;
+        }
+        SudokuGeometry geometry = sudoku.getGeometry();
+        int i = geometry.rowOf(cell);
+        int j = geometry.columnOf(cell);
+        int mark = sudoku.trailMark();
+        for (int value : orderValues(sudoku, i, j, search)) {
+            if(search.isCancelled()) {
+                search.stopped = true;
+                return true;
+            }
+            guess(sudoku, i, j, value, search);
+            boolean done = sudoku.isSolvable() && CountInPlace(sudoku, search, solutions, limit);
+            sudoku.undoTo(mark);
+            backtrack(i, j, value, search);
+            if(done) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Place a guessed value, search below it and undo it if it fails
+     *
+     * @return Whether the board was solved below this guess
+     */
+    private static boolean tryValue(Sudoku sudoku, int i, int j, int value, int mark, Search search) {
+        if(search.isCancelled()) return false;
+        guess(sudoku, i, j, value, search);
+        if(sudoku.isSolvable() && SolveInPlace(sudoku, search)) {
+            return true;
+        }
+        sudoku.undoTo(mark);
+        backtrack(i, j, value, search);
+        return false;
+    }
+
+    /**
+     * Place a guessed value and let it propagate, counting the node, the
+     * values it forced and whether it led to a contradiction
+     */
+    private static void guess(Sudoku sudoku, int i, int j, int value, Search search) {
+        search.statistics.nodes++;
+        if(search.listener != null) search.listener.onGuess(i, j, value);
+        long propagated = sudoku.getPropagationCount();
+        sudoku.addValidEntry(i, j, value);
+        deduce(sudoku, search);
+        search.statistics.propagations += sudoku.getPropagationCount() - propagated;
+        if(!sudoku.isSolvable()) {
+            search.statistics.contradictions++;
+            if(search.listener != null) search.listener.onContradiction(i, j, value);
+        }
+    }
+
+    /**
+     * Run the deduction strategies of the search, if any, on a board that
+     * is still solvable
+     */
+    private static void deduce(Sudoku sudoku, Search search) {
+        if(search.deductions != null && sudoku.isSolvable()) {
+            search.deductions.deduce(sudoku, search.statistics.deductions(search.deductions));
+        }
+    }
+
+    private static void backtrack(int i, int j, int value, Search search) {
+        search.statistics.backtracks++;
+        if(search.listener != null) search.listener.onBacktrack(i, j, value);
+    }
+
+    /**
+     * Pick the next square to guess a value for using the
+     * variable ordering of the search
+     *
+     * @param sudoku Sudoku being solved
+     * @param search State of the running search
+     * @return Cell index of the chosen square or -1 if the board is full
+     */
+    private static int selectSquare(Sudoku sudoku, Search search) {
+        return selectSquare(sudoku, search.options, search.rand);
+    }
+
+    /**
+     * Pick the next square to guess a value for using the
+     * variable ordering of the options
+     *
+     * @param sudoku Sudoku being solved
+     * @param options Settings for the solve
+     * @param rand Source of random tie-breaks
+     * @return Cell index of the chosen square or -1 if the board is full
+     */
+    static int selectSquare(Sudoku sudoku, SolverOptions options, Random rand) {
+        SudokuGeometry geometry = sudoku.getGeometry();
+        SolverOptions.VariableOrdering ordering = options.getVariableOrdering();
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        int bestDegree = -1;
+        int ties = 0;
+        for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+            int i = geometry.rowOf(cell);
+            int j = geometry.columnOf(cell);
+            if(!sudoku.isEmpty(i, j)) continue;
+            if(ordering == SolverOptions.VariableOrdering.ROW_MAJOR) return cell;
+
+            int count = sudoku.possibilityCount(i, j);
+            if(count < bestCount) {
+                best = cell;
+                bestCount = count;
+                ties = 1;
+                bestDegree = ordering == SolverOptions.VariableOrdering.MRV_DEGREE ? emptyPeers(sudoku, cell) : -1;
+                if(count <= 1 && ordering == SolverOptions.VariableOrdering.MRV) return best;
+            } else if(count == bestCount) {
+                if(ordering == SolverOptions.VariableOrdering.MRV_DEGREE) {
+                    int degree = emptyPeers(sudoku, cell);
+                    if(degree > bestDegree) {
+                        best = cell;
+                        bestDegree = degree;
+                    }
+                } else if(ordering == SolverOptions.VariableOrdering.MRV_RANDOM) {
+                    if(rand.nextInt(++ties) == 0) best = cell;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Number of empty squares sharing a row, column or box with a square
+     */
+    private static int emptyPeers(Sudoku sudoku, int cell) {
+        SudokuGeometry geometry = sudoku.getGeometry();
+        int degree = 0;
+        for (int peer : geometry.peers(cell)) {
+            if(sudoku.isEmpty(geometry.rowOf(peer), geometry.columnOf(peer))) degree++;
+        }
+        return degree;
+    }
+
+    /**
+     * Put the possible values of a square in the order they should be
+     * tried according to the value ordering of the search
+     *
+     * @param sudoku Sudoku being solved
+     * @param i First index of the square
+     * @param j Second index of the square
+     * @param search State of the running search
+     * @return Possible values in the order to try them
+     */
+    private static int[] orderValues(Sudoku sudoku, int i, int j, Search search) {
+        return orderValues(sudoku, i, j, search.options, search.rand);
+    }
+
+    /**
+     * Put the possible values of a square in the order they should be
+     * tried according to the value ordering of the options
+     *
+     * @param sudoku Sudoku being solved
+     * @param i First index of the square
+     * @param j Second index of the square
+     * @param options Settings for the solve
+     * @param rand Source of random orderings
+     * @return Possible values in the order to try them
+     */
+    static int[] orderValues(Sudoku sudoku, int i, int j, SolverOptions options, Random rand) {
+        int[] values = new int[sudoku.possibilityCount(i, j)];
+        int k = 0;
+        for (int value = sudoku.nextPossibleValue(i, j, 0); value != 0;
+             value = sudoku.nextPossibleValue(i, j, value)) {
+            values[k++] = value;
+        }
+
+        switch (options.getValueOrdering()) {
+            case RANDOM:
+                for (int n = values.length - 1; n > 0; n--) {
+                    int swap = rand.nextInt(n + 1);
+                    int tmp = values[n];
+                    values[n] = values[swap];
+                    values[swap] = tmp;
+                }
+                break;
+            case LEAST_CONSTRAINING:
+                SudokuGeometry geometry = sudoku.getGeometry();
+                int[] peers = geometry.peers(geometry.cellIndex(i, j));
+                int[] constrained = new int[values.length];
+                for (int v = 0; v < values.length; v++) {
+                    for (int peer : peers) {
+                        if(sudoku.isPossibleValue(geometry.rowOf(peer), geometry.columnOf(peer), values[v])) {
+                            constrained[v]++;
+                        }
+                    }
+                }
+                // Insertion sort, there are never more than size values
+                for (int a = 1; a < values.length; a++) {
+                    int value = values[a];
+                    int key = constrained[a];
+                    int b = a - 1;
+                    while (b >= 0 && constrained[b] > key) {
+                        values[b + 1] = values[b];
+                        constrained[b + 1] = constrained[b];
+                        b--;
+                    }
+                    values[b + 1] = value;
+                    constrained[b + 1] = key;
+                }
+                break;
+            default:
+                break;
+        }
+        return values;
+    }
+
 }
@@ -6,8 +6,27 @@ import org.junit.FixMethodOrder;
 
 import org.junit.runners.MethodSorters;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -71,6 +90,212 @@ public class SudokuTest {
         assertFalse(filledSudoku.cloneSudoku()==(filledSudoku));
     }
 
+    @Test(timeout = TIMEOUT)
+    public void testFlatBoardSnapshot() {
+        int[][] board = puzzle(HARD_PUZZLE);
+        Sudoku sudoku = new Sudoku(board);
+        board[0][1] = board[0][1] == 0 ? 1 : 0;
+        assertFalse(board[0][1] == sudoku.getValue(0, 1));
+
+        Sudoku clone = sudoku.cloneSudoku();
+        assertTrue(clone.equals(sudoku));
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                assertEquals(sudoku.getValue(i * 9 + j), clone.getValue(i, j));
+                assertEquals(sudoku.possibilityCount(i, j), clone.possibilityCount(i, j));
+            }
+        }
+        clone.getBoard()[0][0] = 5;
+        assertEquals(sudoku.getValue(0, 0), clone.getValue(0, 0));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testAnnealingBoardCopy() {
+        ProbabalisticSudoku sudoku = new ProbabalisticSudoku(puzzle(HARD_PUZZLE),
+                ProbabalisticSudoku.FillStrategy.BOX_PERMUTATION, 3);
+        ProbabalisticSudoku copy = sudoku.cloneSudoku();
+        assertArrayEquals(sudoku.getBoard(), copy.getBoard());
+        assertEquals(sudoku.getEntropy(), copy.getEntropy());
+
+        int[] free = new int[2];
+        for (int cell = 0, found = 0; found < 2; cell++) {
+            if(!copy.isFixed(0, cell)) free[found++] = cell;
+        }
+        int before = sudoku.getEntropy();
+        copy.swapSquares(0, free[0], 0, free[1]);
+        assertEquals(before, sudoku.getEntropy());
+        assertEquals(bruteForceEntropy(copy.getBoard()), copy.getEntropy());
+
+        ProbabalisticSudoku refilled = sudoku.refill(ProbabalisticSudoku.FillStrategy.GLOBAL, 5);
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                assertEquals(sudoku.isFixed(i, j), refilled.isFixed(i, j));
+                if(sudoku.isFixed(i, j)) assertEquals(sudoku.getValue(i, j), refilled.getValue(i, j));
+                assertFalse(refilled.isEmpty(i, j));
+            }
+        }
+        assertEquals(bruteForceEntropy(refilled.getBoard()), refilled.getEntropy());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSolveCache() {
+        int[][] original = puzzle(HARD_PUZZLE);
+        // Relabel the values, swap the first two bands and transpose
+        int[][] variant = new int[9][9];
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                int value = original[i < 3 ? i + 3 : i < 6 ? i - 3 : i][j];
+                variant[j][i] = value == 0 ? 0 : value % 9 + 1;
+            }
+        }
+
+        SolveCache cache = new SolveCache(1);
+        Sudoku solved = cache.SudokuSolver(original);
+        Sudoku fromCache = cache.SudokuSolver(variant);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertTrue(solved.isSolved());
+        assertTrue(fromCache.isSolved());
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                if(variant[i][j] != 0) assertEquals(variant[i][j], fromCache.getValue(i, j));
+            }
+        }
+
+        cache.SudokuSolver(puzzle(EASY_PUZZLE));
+        cache.SudokuSolver(original);
+        assertEquals(3, cache.getMisses());
+        assertEquals(2, cache.getEvictions());
+        assertEquals(1, cache.size());
+
+        // Every isomorph shares the canonical form and maps back onto itself
+        Random rand = new Random(18);
+        List<int[][]> puzzles = Arrays.asList(original, puzzle(EASY_PUZZLE), BenchmarkCorpus.puzzles().get(3).getBoard());
+        for (int[][] puzzle : puzzles) {
+            String key = CanonicalForm.of(puzzle).key();
+            for (int k = 0; k < 50; k++) {
+                int[][] isomorph = isomorph(puzzle, rand);
+                CanonicalForm form = CanonicalForm.of(isomorph);
+                assertEquals(key, form.key());
+                assertArrayEquals(isomorph, form.toOriginal(form.getBoard()));
+            }
+        }
+        for (int k = 0; k < 10; k++) {
+            int[][] isomorph = isomorph(original, rand);
+            Sudoku solution = cache.SudokuSolver(isomorph);
+            assertTrue(solution.isSolved());
+            for (int i = 0; i < 9; i++) {
+                for (int j = 0; j < 9; j++) {
+                    if(isomorph[i][j] != 0) assertEquals(isomorph[i][j], solution.getValue(i, j));
+                }
+            }
+        }
+        assertEquals(3, cache.getMisses());
+    }
+
+    /**
+     * Random symmetry of a puzzle: bands, stacks, rows within bands and
+     * columns within stacks shuffled, values relabeled and maybe transposed
+     */
+    private static int[][] isomorph(int[][] puzzle, Random rand) {
+        int size = puzzle.length;
+        int box = (int) Math.round(Math.sqrt(size));
+        int[] rows = shuffledLines(size, box, rand);
+        int[] columns = shuffledLines(size, box, rand);
+        int[] labels = shuffledLines(size, 1, rand);
+        boolean transpose = rand.nextBoolean();
+        int[][] isomorph = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int value = puzzle[rows[i]][columns[j]];
+                value = value == 0 ? 0 : labels[value - 1] + 1;
+                if(transpose) isomorph[j][i] = value;
+                else isomorph[i][j] = value;
+            }
+        }
+        return isomorph;
+    }
+
+    private static int[] shuffledLines(int size, int box, Random rand) {
+        List<Integer> bands = new ArrayList<>();
+        for (int band = 0; band < size / box; band++) {
+            bands.add(band);
+        }
+        Collections.shuffle(bands, rand);
+        int[] order = new int[size];
+        int next = 0;
+        for (int band : bands) {
+            List<Integer> lines = new ArrayList<>();
+            for (int k = 0; k < box; k++) {
+                lines.add(band * box + k);
+            }
+            Collections.shuffle(lines, rand);
+            for (int line : lines) {
+                order[next++] = line;
+            }
+        }
+        return order;
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPuzzleGenerator() {
+        GeneratorOptions options = new GeneratorOptions().setSeed(7);
+        GeneratedPuzzle generated = PuzzleGenerator.generate(options);
+        int[][] puzzle = generated.getPuzzle();
+        int[][] solution = generated.getSolution();
+        assertTrue(new Sudoku(solution).isSolved());
+        assertTrue(SudokuSolver.CountSolutions(puzzle, 2).isUnique());
+        int clues = 0;
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                assertEquals(puzzle[i][j] != 0, puzzle[8 - i][8 - j] != 0);
+                if(puzzle[i][j] != 0) {
+                    assertEquals(solution[i][j], puzzle[i][j]);
+                    clues++;
+                }
+            }
+        }
+        assertEquals(clues, generated.getClueCount());
+
+        List<GeneratedPuzzle> batch = PuzzleGenerator.generate(options, 2, new ForkJoinPool(2));
+        assertArrayEquals(puzzle, batch.get(0).getPuzzle());
+        assertArrayEquals(PuzzleGenerator.generate(new GeneratorOptions(options).setSeed(batch.get(1).getSeed())).getPuzzle(),
+                batch.get(1).getPuzzle());
+
+        GeneratedPuzzle large = PuzzleGenerator.generate(new GeneratorOptions().setSize(16).setSeed(7).setTargetClues(160));
+        assertTrue(large.getClueCount() <= 161);
+        assertTrue(SudokuSolver.CountSolutions(large.getPuzzle(), 2).isUnique());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDeductionPipeline() {
+        DeductionPipeline pipeline = DeductionPipeline.standard();
+        SolverOutput output = SudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE), new SolverOptions()
+                .setSearchMode(SolverOptions.SearchMode.IN_PLACE)
+                .setVariableOrdering(SolverOptions.VariableOrdering.MRV)
+                .setDeductions(pipeline));
+        assertTrue(output.isSolved());
+        assertEquals(0, output.getNodeCount());
+        DeductionReport report = output.getStatistics().getDeductions();
+        assertTrue(report.getFires(pipeline.getStrategies().get(0)) > 0);
+        assertEquals(2, report.getRating());
+        assertEquals(2, pipeline.rate(puzzle(HARD_PUZZLE)).getRating());
+        assertEquals(DeductionReport.SINGLES_RATING, pipeline.rate(puzzle(EASY_PUZZLE)).getRating());
+
+        // Deductions must never rule out the solution
+        for (long seed = 0; seed < 5; seed++) {
+            GeneratedPuzzle generated = PuzzleGenerator.generate(new GeneratorOptions().setSeed(seed));
+            SolverOutput solved = SudokuSolver.SolveSudoku(generated.getPuzzle(), new SolverOptions()
+                    .setDeductions(pipeline));
+            assertArrayEquals(generated.getSolution(), solved.getSudoku().getBoard());
+        }
+
+        GeneratedPuzzle easy = PuzzleGenerator.generate(new GeneratorOptions().setSeed(1)
+                .setMaxRating(DeductionReport.SINGLES_RATING));
+        assertEquals(DeductionReport.SINGLES_RATING, easy.getRating());
+        assertEquals(DeductionReport.SINGLES_RATING, pipeline.rate(easy.getPuzzle()).getRating());
+    }
+
     @Test(timeout = TIMEOUT)
     public void testAddEntry() {
         List<SudokuEntry> fixedEntries = new ArrayList<SudokuEntry>();
@@ -108,4 +333,647 @@ public class SudokuTest {
         assertNotEquals(null, SudokuSolver.SudokuSolver(new ArrayList<>()).toString());
     }
 
-}
\ No newline at end of file
+    @Test(timeout = TIMEOUT)
+    public void testSolverInPlace() {
+        SolverOutput cloned = SudokuSolver.SolveSudoku(puzzle(EASY_PUZZLE), new SolverOptions());
+        SolverOutput inPlace = SudokuSolver.SolveSudoku(puzzle(EASY_PUZZLE),
+                new SolverOptions().setSearchMode(SolverOptions.SearchMode.IN_PLACE));
+
+        assertTrue(inPlace.isSolved());
+        assertTrue(inPlace.getSudoku().isSolved());
+        assertEquals(cloned.getSudoku(), inPlace.getSudoku());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testUndoTrail() {
+        Sudoku sudoku = new Sudoku(puzzle(HARD_PUZZLE));
+        Sudoku original = sudoku.cloneSudoku();
+        sudoku.beginTrail();
+        int mark = sudoku.trailMark();
+        sudoku.addValidEntry(0, 1, sudoku.nextPossibleValue(0, 1, 0));
+        assertFalse(sudoku.isEmpty(0, 1));
+
+        sudoku.undoTo(mark);
+        assertEquals(original, sudoku);
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                for (int value = 0; value <= 9; value++) {
+                    assertEquals(original.nextPossibleValue(i, j, value), sudoku.nextPossibleValue(i, j, value));
+                }
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMinimumRemainingValues() {
+        SolverOptions rowMajor = new SolverOptions().setSearchMode(SolverOptions.SearchMode.IN_PLACE);
+        SolverOptions mrv = new SolverOptions().setSearchMode(SolverOptions.SearchMode.IN_PLACE)
+                .setVariableOrdering(SolverOptions.VariableOrdering.MRV);
+        SolverOutput rowMajorOutput = SudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE), rowMajor);
+        SolverOutput mrvOutput = SudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE), mrv);
+
+        assertTrue(mrvOutput.isSolved());
+        assertEquals(rowMajorOutput.getSudoku(), mrvOutput.getSudoku());
+        assertTrue(mrvOutput.getNodeCount() > 0);
+
+        for (SolverOptions.ValueOrdering ordering : SolverOptions.ValueOrdering.values()) {
+            SolverOutput output = SudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE), new SolverOptions()
+                    .setSearchMode(SolverOptions.SearchMode.IN_PLACE)
+                    .setVariableOrdering(SolverOptions.VariableOrdering.MRV_DEGREE)
+                    .setValueOrdering(ordering).setSeed(1));
+            assertEquals(rowMajorOutput.getSudoku(), output.getSudoku());
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testHiddenSingles() {
+        int[][] board = new int[9][9];
+        // 1 is excluded from every square of the top left box except (0,0)
+        board[1][5] = 1;
+        board[2][7] = 1;
+        board[5][1] = 1;
+        board[7][2] = 1;
+
+        Sudoku sudoku = new Sudoku(board);
+        assertEquals(1, sudoku.getBoard()[0][0]);
+        assertTrue(sudoku.isSolvable());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPropagationContradiction() {
+        int[][] board = new int[9][9];
+        // 1 has no square left in the top left box
+        board[0][5] = 1;
+        board[1][6] = 1;
+        board[4][2] = 1;
+        board[5][1] = 1;
+        board[2][0] = 2;
+        board[2][1] = 3;
+        board[2][2] = 4;
+
+        assertFalse(new Sudoku(board).isSolvable());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDancingLinks() {
+        int[][] board = puzzle(HARD_PUZZLE);
+        SolverOutput output = DancingLinksSolver.SolveSudoku(board);
+
+        assertTrue(output.isSolved());
+        assertEquals(SudokuSolver.SudokuSolver(puzzle(HARD_PUZZLE)), output.getSudoku());
+        assertArrayEquals(puzzle(HARD_PUZZLE), board);
+        // The matrix is reused, so a second solve must give the same answer
+        assertEquals(output.getSudoku(), DancingLinksSolver.SudokuSolver(puzzle(HARD_PUZZLE)));
+
+        board[0][1] = 4;
+        assertFalse(DancingLinksSolver.SolveSudoku(board).isSolved());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testParallelSolver() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            SolverOutput output = ParallelSudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE), new SolverOptions()
+                    .setVariableOrdering(SolverOptions.VariableOrdering.MRV), pool);
+            assertTrue(output.isSolved());
+            assertEquals(SudokuSolver.SudokuSolver(puzzle(HARD_PUZZLE)), output.getSudoku());
+
+            SolverOutput cancelled = ParallelSudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE), new SolverOptions()
+                    .setCancellation(() -> true), pool);
+            assertFalse(cancelled.isSolved());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testBatchSolver() throws IOException {
+        Path input = Files.createTempFile("puzzles", ".txt");
+        Path output = Files.createTempFile("solutions", ".txt");
+        try {
+            Files.write(input, Arrays.asList("# two puzzles", HARD_PUZZLE, "", "11" + EASY_PUZZLE.substring(2), "12"));
+            BatchSolver.Summary summary = new BatchSolver(2).solve(input, output);
+
+            assertEquals(3, summary.getPuzzles());
+            assertEquals(1, summary.getSolved());
+            assertEquals(1, summary.getUnsolvable());
+            assertEquals(1, summary.getErrors());
+
+            List<String> lines = Files.readAllLines(output);
+            assertEquals(SudokuFormat.format(SudokuSolver.SudokuSolver(puzzle(HARD_PUZZLE)).getBoard()), lines.get(0));
+            assertEquals("unsolvable", lines.get(1));
+            assertTrue(lines.get(2).startsWith("error: "));
+
+            // A read error after the queue has filled up still fails the batch
+            List<String> puzzles = new ArrayList<>();
+            for (int k = 0; k < 20; k++) {
+                puzzles.add(EASY_PUZZLE);
+            }
+            puzzles.add("\u00e9" + EASY_PUZZLE);
+            Files.write(input, puzzles, StandardCharsets.UTF_8);
+            BatchSolver slow = new BatchSolver(board -> {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return DancingLinksSolver.SolveSudoku(board);
+            }, 1, 2);
+            try {
+                slow.solve(input, output);
+                fail("A malformed input file should fail the batch");
+            } catch (IOException e) {
+                assertNotNull(e.getCause());
+            }
+        } finally {
+            Files.delete(input);
+            Files.delete(output);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCountSolutions() {
+        SolutionCount unique = SudokuSolver.CountSolutions(puzzle(HARD_PUZZLE), 2);
+        assertEquals(1, unique.getCount());
+        assertTrue(unique.isUnique());
+        assertEquals(SudokuSolver.SudokuSolver(puzzle(HARD_PUZZLE)), unique.getSolutions().get(0));
+
+        // Dropping clues from a unique puzzle leaves it with several solutions
+        int[][] board = puzzle(HARD_PUZZLE);
+        board[0][0] = 0;
+        board[0][6] = 0;
+        board[0][8] = 0;
+        SolutionCount several = SudokuSolver.CountSolutions(board, 3);
+        assertEquals(3, several.getCount());
+        assertTrue(several.isLimitReached());
+        assertFalse(several.isUnique());
+        assertNotEquals(several.getSolutions().get(0), several.getSolutions().get(1));
+
+        board = puzzle(HARD_PUZZLE);
+        board[0][1] = 4;
+        assertEquals(0, SudokuSolver.CountSolutions(board, 2).getCount());
+
+        // A count cancelled after its first solution proves nothing about uniqueness
+        int[] checks = new int[1];
+        SudokuSolver.CountSolutions(new int[9][9], 1, new SolverOptions()
+                .setVariableOrdering(SolverOptions.VariableOrdering.MRV)
+                .setCancellation(() -> ++checks[0] < 0));
+        int firstSolution = checks[0];
+        checks[0] = 0;
+        SolutionCount cancelled = SudokuSolver.CountSolutions(new int[9][9], 2, new SolverOptions()
+                .setVariableOrdering(SolverOptions.VariableOrdering.MRV)
+                .setCancellation(() -> ++checks[0] > firstSolution));
+        assertEquals(1, cancelled.getCount());
+        assertFalse(cancelled.isCompleted());
+        assertFalse(cancelled.isUnique());
+        assertTrue(unique.isCompleted());
+        assertTrue(several.isCompleted());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testIncrementalEntropy() {
+        ProbabalisticSudoku sudoku = new ProbabalisticSudoku(puzzle(HARD_PUZZLE));
+        assertEquals(bruteForceEntropy(sudoku.getBoard()), sudoku.getEntropy());
+
+        Random rand = new Random(7);
+        for (int k = 0; k < 500; k++) {
+            int x1 = rand.nextInt(9), y1 = rand.nextInt(9), x2 = rand.nextInt(9), y2 = rand.nextInt(9);
+            if(sudoku.isFixed(x1, y1) || sudoku.isFixed(x2, y2)) continue;
+
+            int before = sudoku.getEntropy();
+            int delta = sudoku.swapDelta(x1, y1, x2, y2);
+            sudoku.swapSquares(x1, y1, x2, y2);
+            assertEquals(before + delta, sudoku.getEntropy());
+            assertEquals(bruteForceEntropy(sudoku.getBoard()), sudoku.getEntropy());
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testBoxPreservingAnnealing() {
+        ProbabalisticSudoku sudoku = new ProbabalisticSudoku(puzzle(HARD_PUZZLE),
+                ProbabalisticSudoku.FillStrategy.BOX_PERMUTATION, 3);
+        int[][] board = sudoku.getBoard();
+        for (int box = 0; box < 9; box++) {
+            boolean[] seen = new boolean[10];
+            for (int k = 0; k < 9; k++) {
+                int value = board[3 * (box / 3) + k / 3][3 * (box % 3) + k % 3];
+                assertFalse(seen[value]);
+                seen[value] = true;
+            }
+        }
+        assertEquals(bruteForceEntropy(board), sudoku.getEntropy());
+
+        SolverOutput output = ProbabalisticSudokuSolver.SolveSudoku(puzzle(EASY_PUZZLE),
+                AnnealingOptions.boxPreserving().setSeed(1));
+        assertTrue(output.isSolved());
+        assertTrue(output.getSudoku().isSolved());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testAnnealingBudgets() {
+        SolverOutput output = ProbabalisticSudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE),
+                new AnnealingOptions().setSeed(1).setMaxIterations(1000));
+        assertFalse(output.isSolved());
+        assertEquals(SolverOutput.Termination.ITERATION_BUDGET, output.getTermination());
+        assertEquals(1000, output.getNodeCount());
+        assertNotNull(output.getSudoku());
+
+        output = ProbabalisticSudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE),
+                new AnnealingOptions().setSeed(1).setTimeLimit(Duration.ZERO));
+        assertEquals(SolverOutput.Termination.TIME_BUDGET, output.getTermination());
+
+        output = ProbabalisticSudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE),
+                new AnnealingOptions().setSeed(1).setCoolingSchedule(CoolingSchedule.geometric(0.01, 1))
+                        .setRestartAfter(100).setMaxRestarts(2));
+        assertEquals(SolverOutput.Termination.STALLED, output.getTermination());
+
+        output = SudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE), new SolverOptions().setCancellation(() -> true));
+        assertEquals(SolverOutput.Termination.CANCELLED, output.getTermination());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSolverStatistics() {
+        long[] events = new long[3];
+        SolverListener listener = new SolverListener() {
+            @Override
+            public void onGuess(int row, int column, int value) {
+                events[0]++;
+            }
+
+            @Override
+            public void onBacktrack(int row, int column, int value) {
+                events[1]++;
+            }
+
+            @Override
+            public void onMove(long iteration, int entropy, boolean accepted) {
+                events[2]++;
+            }
+        };
+
+        SolverOutput output = SudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE), new SolverOptions()
+                .setSearchMode(SolverOptions.SearchMode.IN_PLACE).setListener(listener));
+        SolverStatistics statistics = output.getStatistics();
+        assertTrue(output.isSolved());
+        assertEquals(output.getNodeCount(), statistics.getNodes());
+        assertEquals(events[0], statistics.getNodes());
+        assertEquals(events[1], statistics.getBacktracks());
+        assertTrue(statistics.getBacktracks() < statistics.getNodes());
+        assertTrue(statistics.getContradictions() <= statistics.getNodes());
+        assertTrue(statistics.getPropagations() > 0);
+
+        output = ProbabalisticSudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE),
+                new AnnealingOptions().setSeed(1).setMaxIterations(5000).setListener(listener));
+        statistics = output.getStatistics();
+        assertEquals(5000, events[2]);
+        assertEquals(5000, statistics.getAcceptedSwaps() + statistics.getRejectedSwaps());
+        int[] trajectory = statistics.getTrajectoryEntropies();
+        assertTrue(trajectory.length > 0);
+        for (int k = 1; k < trajectory.length; k++) {
+            assertTrue(trajectory[k] < trajectory[k - 1] || statistics.getRestarts() > 0);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testParallelTempering() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            SolverOutput output = ParallelTemperingSolver.SolveSudoku(puzzle(EASY_PUZZLE),
+                    AnnealingOptions.boxPreserving().setSeed(5), pool);
+            assertTrue(output.isSolved());
+            assertTrue(output.getSudoku().isSolved());
+
+            AnnealingOptions options = AnnealingOptions.boxPreserving().setSeed(5)
+                    .setReplicas(3).setExchangeInterval(100).setMaxIterations(2000);
+            SolverOutput first = ParallelTemperingSolver.SolveSudoku(puzzle(HARD_PUZZLE), options, pool);
+            SolverOutput second = ParallelTemperingSolver.SolveSudoku(puzzle(HARD_PUZZLE), options, pool);
+            assertEquals(SolverOutput.Termination.ITERATION_BUDGET, first.getTermination());
+            assertEquals(3 * 2000, first.getStatistics().getNodes());
+            assertEquals(first.getStatistics().getExchanges(), second.getStatistics().getExchanges());
+            assertArrayEquals(first.getSudoku().getBoard(), second.getSudoku().getBoard());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(timeout = 5 * TIMEOUT)
+    public void testResumableSearch() {
+        SolverOptions options = new SolverOptions().setVariableOrdering(SolverOptions.VariableOrdering.MRV);
+        SolverOutput recursive = SudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE),
+                new SolverOptions(options).setSearchMode(SolverOptions.SearchMode.IN_PLACE));
+        SolverOutput explicit = SudokuSolver.SolveSudoku(puzzle(HARD_PUZZLE),
+                new SolverOptions(options).setSearchMode(SolverOptions.SearchMode.EXPLICIT_STACK));
+        assertTrue(explicit.isSolved());
+        assertEquals(recursive.getSudoku(), explicit.getSudoku());
+        assertEquals(recursive.getNodeCount(), explicit.getNodeCount());
+
+        ResumableSearch search = new ResumableSearch(puzzle(HARD_PUZZLE), options);
+        SolverOutput output = search.run(5, 0);
+        assertEquals(SolverOutput.Termination.ITERATION_BUDGET, output.getTermination());
+        assertEquals(5, output.getNodeCount());
+        while (!search.isFinished()) {
+            search = ResumableSearch.resume(search.checkpoint(), new SolverOptions());
+            output = search.run(5, 0);
+        }
+        assertTrue(output.isSolved());
+        assertEquals(explicit.getSudoku(), output.getSudoku());
+        assertEquals(explicit.getNodeCount(), output.getNodeCount());
+
+        try {
+            search.checkpoint();
+            fail("A finished search has no checkpoint");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            ResumableSearch.resume(new byte[] {1, 2, 3}, options);
+            fail("Garbage is not a checkpoint");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        // 4096 levels deep without recursion
+        assertTrue(SudokuSolver.SolveSudoku(new int[64][64], new SolverOptions(options)
+                .setSearchMode(SolverOptions.SearchMode.EXPLICIT_STACK)).getSudoku().isSolved());
+    }
+
+    @Test(timeout = 5 * TIMEOUT)
+    public void testSatSolver() {
+        SolverOutput output = SatSolver.SolveSudoku(puzzle(HARD_PUZZLE), new SolverOptions());
+        assertTrue(output.isSolved());
+        assertEquals(SudokuSolver.SudokuSolver(puzzle(HARD_PUZZLE)), output.getSudoku());
+        assertEquals(output.getNodeCount(), output.getStatistics().getNodes());
+
+        List<SudokuEntry> entries = new ArrayList<>();
+        int[][] large = BenchmarkCorpus.puzzles().get(3).getBoard();
+        for (int i = 0; i < Sudoku.size; i++) {
+            for (int j = 0; j < Sudoku.size; j++) {
+                if(large[i][j] != 0) entries.add(new SudokuEntry(i, j, large[i][j]));
+            }
+        }
+        assertEquals(SatSolver.SudokuSolver(large), SatSolver.SudokuSolver(entries));
+
+        int[][] board = puzzle(HARD_PUZZLE);
+        board[0][1] = 4;
+        assertEquals(SolverOutput.Termination.UNSOLVABLE,
+                SatSolver.SolveSudoku(board, new SolverOptions()).getTermination());
+        assertEquals(SolverOutput.Termination.CANCELLED, SatSolver.SolveSudoku(new int[25][25],
+                new SolverOptions().setCancellation(() -> true)).getTermination());
+
+        for (BenchmarkCorpus.Puzzle puzzle : BenchmarkCorpus.puzzles()) {
+            if(puzzle.getName().equals("25x25-pathological")) {
+                int[][] clues = puzzle.getBoard();
+                int[][] solution = SatSolver.SudokuSolver(clues).getBoard();
+                assertTrue(new Sudoku(solution).isSolved());
+                for (int i = 0; i < 25; i++) {
+                    for (int j = 0; j < 25; j++) {
+                        if(clues[i][j] != 0) assertEquals(clues[i][j], solution[i][j]);
+                    }
+                }
+            }
+        }
+        long[] luby = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2};
+        for (int k = 0; k < luby.length; k++) {
+            assertEquals(luby[k], CdclSolver.luby(k));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPortfolioSolver() {
+        try (PortfolioSolver portfolio = new PortfolioSolver()) {
+            PortfolioOutput output = portfolio.solve(puzzle(HARD_PUZZLE));
+            assertTrue(output.isSolved());
+            assertTrue(output.getSudoku().isSolved());
+            assertNotNull(output.getWinner());
+            assertEquals(PortfolioSolver.defaultStrategies().size(), output.getStrategyOutputs().size());
+            assertTrue(output.getStrategyOutputs().get(output.getWinner()).isSolved());
+
+            int[][] board = puzzle(HARD_PUZZLE);
+            board[0][1] = 4;
+            output = portfolio.solve(board);
+            assertFalse(output.isSolved());
+            assertNull(output.getWinner());
+            assertEquals(SolverOutput.Termination.UNSOLVABLE, output.getTermination());
+            assertEquals(SolverOutput.Termination.CANCELLED,
+                    output.getStrategyOutputs().get("annealing").getTermination());
+        }
+
+        // A strategy that throws proves nothing and must not end the race
+        PortfolioSolver.Strategy broken = new PortfolioSolver.Strategy("broken", (board, cancellation) -> {
+            throw new IllegalStateException("broken strategy");
+        });
+        List<PortfolioSolver.Strategy> strategies = Arrays.asList(broken, PortfolioSolver.Strategy.dancingLinks());
+        try (PortfolioSolver portfolio = new PortfolioSolver(strategies)) {
+            for (int k = 0; k < 20; k++) {
+                PortfolioOutput output = portfolio.solve(puzzle(HARD_PUZZLE));
+                assertTrue(output.isSolved());
+                assertEquals("dancing-links", output.getWinner());
+                SolverOutput failed = output.getStrategyOutputs().get("broken");
+                assertEquals(SolverOutput.Termination.FAILED, failed.getTermination());
+                assertTrue(failed.getFailure() instanceof IllegalStateException);
+            }
+        }
+        try (PortfolioSolver portfolio = new PortfolioSolver(Arrays.asList(broken))) {
+            PortfolioOutput output = portfolio.solve(puzzle(HARD_PUZZLE));
+            assertFalse(output.isSolved());
+            assertEquals(SolverOutput.Termination.FAILED, output.getTermination());
+        }
+    }
+
+    @Test(timeout = 10 * BenchmarkCorpus.EASY_SOLVE_MILLIS)
+    public void testLargeBoards() {
+        SolverOptions options = new SolverOptions()
+                .setSearchMode(SolverOptions.SearchMode.IN_PLACE)
+                .setVariableOrdering(SolverOptions.VariableOrdering.MRV);
+        for (BenchmarkCorpus.Puzzle puzzle : BenchmarkCorpus.puzzles()) {
+            int size = puzzle.getSize();
+            if(size < 25 || puzzle.getDifficulty() != BenchmarkCorpus.Difficulty.EASY) continue;
+            int[][] board = puzzle.getBoard();
+            long cells = (long)size * size;
+
+            // The geometry of a size is built by the first board and shared after
+            new Sudoku(puzzle.getBoard());
+            long allocated = allocatedBytes();
+            Sudoku sudoku = new Sudoku(puzzle.getBoard());
+            long built = allocatedBytes();
+            Sudoku copy = sudoku.cloneSudoku();
+            long copied = allocatedBytes();
+            String text = sudoku.toString();
+            long rendered = allocatedBytes();
+            if(allocated >= 0) {
+                assertTrue(puzzle.getName(), built - allocated <= BenchmarkCorpus.BOARD_BYTES_PER_CELL * cells);
+                assertTrue(puzzle.getName(), copied - built <= BenchmarkCorpus.BOARD_BYTES_PER_CELL * cells);
+                assertTrue(puzzle.getName(), rendered - copied <= BenchmarkCorpus.TEXT_BYTES_PER_CELL * cells);
+            }
+            assertEquals(sudoku, copy);
+            int width = Integer.toString(size).length();
+            assertEquals(size * (size * (width + 1) + 2), text.length());
+            assertArrayEquals(board, SudokuFormat.parse(SudokuFormat.format(board)));
+
+            long start = System.nanoTime();
+            SolverOutput output = SudokuSolver.SolveSudoku(board, options);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(puzzle.getName(), output.isSolved());
+            assertTrue(puzzle.getName() + " took " + millis + "ms", millis <= BenchmarkCorpus.EASY_SOLVE_MILLIS);
+            int[][] solution = output.getSudoku().getBoard();
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    if(board[i][j] != 0) assertEquals(board[i][j], solution[i][j]);
+                }
+            }
+        }
+
+        // An empty board recurses once per square, 4096 levels deep
+        assertTrue(SudokuSolver.SolveSudoku(new int[64][64], options).getSudoku().isSolved());
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, -1 if the JVM does
+     * not count them
+     */
+    private static long allocatedBytes() {
+        if(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    @Test(timeout = 5 * TIMEOUT)
+    public void testSolverService() throws Exception {
+        int[][] slow = null;
+        for (BenchmarkCorpus.Puzzle puzzle : BenchmarkCorpus.puzzles()) {
+            if(puzzle.getName().equals("25x25-pathological")) slow = puzzle.getBoard();
+        }
+        try (SolverService service = new SolverService(1, 1, SolverService.AdmissionPolicy.REJECT)) {
+            SolverOutput output = service.submit(puzzle(HARD_PUZZLE), Duration.ofSeconds(10)).get();
+            assertTrue(output.isSolved());
+            assertEquals(SudokuSolver.SudokuSolver(puzzle(HARD_PUZZLE)), output.getSudoku());
+            assertTrue(service.submit(puzzle(HARD_PUZZLE), PortfolioSolver.Strategy.sat(), null).get().isSolved());
+
+            CompletableFuture<SolverOutput> timed = service.submit(slow, Duration.ofMillis(50));
+            CompletableFuture<SolverOutput> cancelled = service.submit(slow, null);
+            try {
+                service.submit(puzzle(HARD_PUZZLE), null).get();
+                fail("The queue is full");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            assertEquals(SolverOutput.Termination.TIME_BUDGET, timed.get().getTermination());
+            assertTrue(cancelled.cancel(true));
+            while (service.getInFlight() > 0) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, service.getRejected());
+            assertEquals(1, service.getTimedOut());
+        }
+
+        try (SolverService service = new SolverService(1, 0, SolverService.AdmissionPolicy.BLOCK)) {
+            CompletableFuture<SolverOutput> first = service.submit(slow, Duration.ofMillis(30));
+            SolverOutput second = service.submit(puzzle(EASY_PUZZLE), Duration.ofSeconds(10)).get();
+            assertTrue(second.isSolved());
+            assertEquals(SolverOutput.Termination.TIME_BUDGET, first.get().getTermination());
+        }
+
+        // Long requests neither hold up a short one nor keep it waiting past its deadline
+        CountDownLatch holdingSlot = new CountDownLatch(1);
+        PortfolioSolver.Strategy stubborn = new PortfolioSolver.Strategy("stubborn", (board, cancellation) -> {
+            holdingSlot.countDown();
+            while (!cancellation.getAsBoolean()) {
+                Thread.yield();
+            }
+            return new SolverOutput(false, null, 0, SolverOutput.Termination.CANCELLED);
+        });
+        try (SolverService service = new SolverService(1, 4, SolverService.AdmissionPolicy.REJECT)) {
+            CompletableFuture<SolverOutput> sliced = service.submit(slow, null);
+            SolverOutput quick = service.submit(puzzle(EASY_PUZZLE), Duration.ofSeconds(10))
+                    .get(TIMEOUT, TimeUnit.MILLISECONDS);
+            assertTrue(quick.isSolved());
+            assertTrue(sliced.cancel(true));
+
+            CompletableFuture<SolverOutput> holding = service.submit(puzzle(HARD_PUZZLE), stubborn, null);
+            holdingSlot.await();
+            SolverOutput late = service.submit(puzzle(EASY_PUZZLE), Duration.ofMillis(20))
+                    .get(TIMEOUT, TimeUnit.MILLISECONDS);
+            assertEquals(SolverOutput.Termination.TIME_BUDGET, late.getTermination());
+            assertTrue(holding.cancel(true));
+        }
+    }
+
+    @Test(timeout = 5 * TIMEOUT)
+    public void testSolverHttpServer() throws IOException {
+        try (SolverService service = new SolverService(2, 4, SolverService.AdmissionPolicy.REJECT);
+             SolverHttpServer server = new SolverHttpServer(service, 0)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+            assertEquals("200 " + SudokuFormat.format(SudokuSolver.SudokuSolver(puzzle(HARD_PUZZLE)).getBoard()),
+                    post(base + "/solve?timeout=1000", HARD_PUZZLE));
+            assertTrue(post(base + "/solve?solver=sat", HARD_PUZZLE).startsWith("200 "));
+            assertTrue(post(base + "/solve", "not a puzzle").startsWith("400 "));
+            assertTrue(post(base + "/solve?solver=nope", HARD_PUZZLE).startsWith("400 "));
+            assertTrue(post(base + "/solve", "44" + HARD_PUZZLE.substring(2)).startsWith("422 "));
+        }
+    }
+
+    /**
+     * Post a body and return the status and the first line of the reply
+     */
+    private static String post(String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            String reply = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return status + " " + reply.split("\n")[0];
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Entropy counted directly: for every square, the other squares with
+     * the same value in its row, its column, or its box outside its row
+     * and column
+     */
+    private static int bruteForceEntropy(int[][] board) {
+        int entropy = 0;
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                for (int x = 0; x < 9; x++) {
+                    for (int y = 0; y < 9; y++) {
+                        if((x == i && y == j) || board[x][y] != board[i][j]) continue;
+                        boolean sameBox = x / 3 == i / 3 && y / 3 == j / 3;
+                        if(x == i || y == j || sameBox) entropy++;
+                    }
+                }
+            }
+        }
+        return entropy;
+    }
+
+    private static final String EASY_PUZZLE =
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+    private static final String HARD_PUZZLE =
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+
+    /**
+     * Turn a puzzle string with one character per square, '.' for empty,
+     * into an array
+     */
+    private static int[][] puzzle(String puzzle) {
+        int size = (int)Math.sqrt(puzzle.length());
+        int[][] board = new int[size][size];
+        for (int i = 0; i < puzzle.length(); i++) {
+            char c = puzzle.charAt(i);
+            board[i / size][i % size] = c == '.' ? 0 : Character.digit(c, 36);
+        }
+        return board;
+    }
+
+}